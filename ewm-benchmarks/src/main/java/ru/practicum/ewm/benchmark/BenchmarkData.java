@@ -0,0 +1,81 @@
+package ru.practicum.ewm.benchmark;
+
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.model.Category;
+import ru.practicum.ewm.model.Compilation;
+import ru.practicum.ewm.model.Event;
+import ru.practicum.ewm.model.EventShortView;
+import ru.practicum.ewm.model.Location;
+import ru.practicum.ewm.model.User;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+// Тестовые данные с размерами полей, как в реальных событиях (annotation до 2000, description до 7000 символов)
+final class BenchmarkData {
+    static final String ANNOTATION = text(400);
+    static final String DESCRIPTION = text(3000);
+
+    private BenchmarkData() {
+    }
+
+    static Event event(long id, Random random) {
+        Category category = new Category();
+        category.setId(1 + random.nextLong(50));
+        category.setName("Категория " + category.getId());
+
+        User initiator = new User();
+        initiator.setId(1 + random.nextLong(1000));
+        initiator.setName("Пользователь " + initiator.getId());
+        initiator.setEmail("user" + initiator.getId() + "@example.com");
+
+        Location location = new Location();
+        location.setId(id);
+        location.setLat(55.75f + random.nextFloat());
+        location.setLon(37.61f + random.nextFloat());
+
+        Event event = new Event();
+        event.setId(id);
+        event.setAnnotation(ANNOTATION);
+        event.setDescription(DESCRIPTION);
+        event.setCategory(category);
+        event.setInitiator(initiator);
+        event.setLocation(location);
+        event.setCreatedOn(LocalDateTime.now().minusDays(random.nextInt(30)));
+        event.setEventDate(LocalDateTime.now().plusDays(1 + random.nextInt(365)));
+        event.setPublishedOn(LocalDateTime.now().minusDays(random.nextInt(10)));
+        event.setPaid(random.nextBoolean());
+        event.setParticipantLimit((long) random.nextInt(100));
+        event.setRequestModeration(random.nextBoolean());
+        event.setState(EventState.PUBLISHED);
+        event.setTitle("Событие " + id);
+        event.setConfirmedRequests((long) random.nextInt(50));
+        return event;
+    }
+
+    static EventShortView shortView(Event event) {
+        return new EventShortView(event.getId(), event.getAnnotation(),
+                event.getCategory().getId(), event.getCategory().getName(),
+                event.getConfirmedRequests(), event.getEventDate(),
+                event.getInitiator().getId(), event.getInitiator().getName(),
+                event.getPaid(), event.getTitle());
+    }
+
+    static Compilation compilation(long id, int eventCount, Random random) {
+        Set<Event> events = new LinkedHashSet<>();
+        for (int i = 0; i < eventCount; i++) {
+            events.add(event(id * eventCount + i, random));
+        }
+        return new Compilation(id, random.nextBoolean(), "Подборка " + id, events);
+    }
+
+    static String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("Интересное событие в центре города. ");
+        }
+        return text.substring(0, length);
+    }
+}
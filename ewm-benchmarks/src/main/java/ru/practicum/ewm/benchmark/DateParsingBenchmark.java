@@ -0,0 +1,45 @@
+package ru.practicum.ewm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+// Разбор rangeStart/rangeEnd в getEventList и формат timestamp хита
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateParsingBenchmark {
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String rangeStart = "2030-01-01 10:00:00";
+    private final LocalDateTime timestamp = LocalDateTime.of(2030, 1, 1, 10, 0, 0);
+
+    @Benchmark
+    public LocalDateTime parseSharedFormatter() {
+        return LocalDateTime.parse(rangeStart, DTF);
+    }
+
+    // так выглядит разбор, если форматтер создается на каждый запрос
+    @Benchmark
+    public LocalDateTime parseNewFormatter() {
+        return LocalDateTime.parse(rangeStart, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+
+    @Benchmark
+    public String formatSharedFormatter() {
+        return timestamp.format(DTF);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.ewm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.ewm.dto.compilation.CompilationDto;
+import ru.practicum.ewm.dto.event.EventFullDto;
+import ru.practicum.ewm.dto.event.EventShortDto;
+import ru.practicum.ewm.mapper.CompilationMapper;
+import ru.practicum.ewm.mapper.CompilationMapperImpl;
+import ru.practicum.ewm.mapper.EventMapper;
+import ru.practicum.ewm.mapper.EventMapperImpl;
+import ru.practicum.ewm.model.Compilation;
+import ru.practicum.ewm.model.Event;
+import ru.practicum.ewm.model.EventShortView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Преобразования MapStruct на страницах выдачи: сущность -> DTO и проекция -> DTO
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventMapperBenchmark {
+    private static final int PAGE_SIZE = 10;
+
+    private final EventMapper eventMapper = new EventMapperImpl();
+    private final CompilationMapper compilationMapper = new CompilationMapperImpl();
+
+    private List<Event> events;
+    private List<EventShortView> shortViews;
+    private Compilation compilation;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        events = new ArrayList<>();
+        shortViews = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            Event event = BenchmarkData.event(id, random);
+            events.add(event);
+            shortViews.add(BenchmarkData.shortView(event));
+        }
+        compilation = BenchmarkData.compilation(1, 20, random);
+    }
+
+    @Benchmark
+    public List<EventShortDto> eventToShortDtoPage() {
+        return eventMapper.toEventShortDtoList(events);
+    }
+
+    @Benchmark
+    public List<EventShortDto> shortViewToShortDtoPage() {
+        List<EventShortDto> result = new ArrayList<>(shortViews.size());
+        for (EventShortView view : shortViews) {
+            result.add(eventMapper.toEventShortDto(view));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<EventFullDto> eventToFullDtoPage() {
+        List<EventFullDto> result = new ArrayList<>(events.size());
+        for (Event event : events) {
+            result.add(eventMapper.toEventFullDto(event));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public CompilationDto compilationToDto() {
+        return compilationMapper.toCompilationDto(compilation);
+    }
+}
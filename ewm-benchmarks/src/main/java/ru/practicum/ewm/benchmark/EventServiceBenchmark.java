@@ -0,0 +1,228 @@
+package ru.practicum.ewm.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.EwmServiceApp;
+import ru.practicum.ewm.dto.compilation.CompilationDto;
+import ru.practicum.ewm.dto.event.AdminEventFilter;
+import ru.practicum.ewm.dto.event.EventFullDto;
+import ru.practicum.ewm.dto.event.EventShortDto;
+import ru.practicum.ewm.dto.event.PublicEventFilter;
+import ru.practicum.ewm.dto.page.CursorPage;
+import ru.practicum.ewm.service.compilation.CompilationService;
+import ru.practicum.ewm.service.event.EventService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Сервисный слой целиком: Spring-контекст, H2 в памяти с заполненными таблицами
+// и заглушка сервиса статистики на локальном порту (пустой /stats, 201 на хиты)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EventServiceBenchmark {
+    private static final int USERS = 1000;
+    private static final int CATEGORIES = 50;
+    private static final int COMPILATIONS = 50;
+    private static final int EVENTS_PER_COMPILATION = 10;
+
+    @Param({"10000"})
+    private int events;
+
+    private HttpServer statsStub;
+    private ConfigurableApplicationContext context;
+    private EventService eventService;
+    private CompilationService compilationService;
+    private TransactionTemplate session;
+    private String deepCursor;
+    private long eventId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        statsStub = startStatsStub();
+        context = new SpringApplicationBuilder(EwmServiceApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // аргументы командной строки, а не properties(): те перекрываются application.properties
+                .run("--stats-server.url=http://127.0.0.1:" + statsStub.getAddress().getPort(),
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--ewm.views.refresh-interval-ms=3600000",
+                        "--ewm.confirmed-requests.reconcile-interval-ms=3600000",
+                        "--logging.level.root=WARN");
+        seed(context.getBean(JdbcTemplate.class));
+        eventService = context.getBean(EventService.class);
+        compilationService = context.getBean(CompilationService.class);
+        // в веб-запросе сессию держит open-in-view, здесь ее заменяет readOnly-транзакция
+        session = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        session.setReadOnly(true);
+
+        // курсор из середины выдачи: keyset должен стоить столько же, сколько первая страница
+        PublicEventFilter filter = publicFilter();
+        filter.setCursor("");
+        filter.setSize(events / 4);
+        deepCursor = session.execute(status -> eventService.getEventList(filter)).nextCursor();
+        eventId = events / 2;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        statsStub.stop(0);
+    }
+
+    @Benchmark
+    public List<EventShortDto> publicListFirstPage() {
+        return session.execute(status -> eventService.getEventList(publicFilter()).items());
+    }
+
+    @Benchmark
+    public List<EventShortDto> publicListDeepOffset() {
+        PublicEventFilter filter = publicFilter();
+        filter.setFrom(events / 2);
+        return session.execute(status -> eventService.getEventList(filter).items());
+    }
+
+    @Benchmark
+    public List<EventShortDto> publicListDeepCursor() {
+        PublicEventFilter filter = publicFilter();
+        filter.setCursor(deepCursor);
+        return session.execute(status -> eventService.getEventList(filter).items());
+    }
+
+    @Benchmark
+    public List<EventShortDto> publicListByViewsOnlyAvailable() {
+        PublicEventFilter filter = publicFilter();
+        filter.setSort("VIEWS");
+        filter.setOnlyAvailable(true);
+        return session.execute(status -> eventService.getEventList(filter).items());
+    }
+
+    @Benchmark
+    public CursorPage<EventFullDto> adminList() {
+        AdminEventFilter filter = new AdminEventFilter();
+        filter.setStates(List.of("PUBLISHED", "PENDING"));
+        filter.setCategories(List.of(1L, 2L, 3L, 4L, 5L));
+        return session.execute(status -> eventService.getEventsByAdmin(filter));
+    }
+
+    @Benchmark
+    public EventFullDto publicEvent() {
+        return session.execute(status -> eventService.getEvent(eventId, "127.0.0.1", "/events/" + eventId));
+    }
+
+    @Benchmark
+    public List<CompilationDto> compilations() {
+        return session.execute(status -> compilationService.getCompilationList(null, 0, 10));
+    }
+
+    private PublicEventFilter publicFilter() {
+        PublicEventFilter filter = new PublicEventFilter();
+        filter.setUserIp("127.0.0.1");
+        filter.setRequestUri("/events");
+        return filter;
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[]{"user" + i + "@example.com", "Пользователь " + i});
+        }
+        jdbc.batchUpdate("INSERT INTO users (email, name) VALUES (?, ?)", users);
+
+        List<Object[]> categories = new ArrayList<>();
+        for (int i = 1; i <= CATEGORIES; i++) {
+            categories.add(new Object[]{"Категория " + i});
+        }
+        jdbc.batchUpdate("INSERT INTO categories (name) VALUES (?)", categories);
+
+        List<Object[]> locations = new ArrayList<>();
+        List<Object[]> eventRows = new ArrayList<>();
+        for (int i = 1; i <= events; i++) {
+            locations.add(new Object[]{55.75f + random.nextFloat(), 37.61f + random.nextFloat()});
+            int limit = random.nextInt(4) == 0 ? 0 : 10 + random.nextInt(90);
+            eventRows.add(new Object[]{
+                    BenchmarkData.ANNOTATION,
+                    1 + random.nextInt(CATEGORIES),
+                    Timestamp.valueOf(now.minusDays(random.nextInt(30))),
+                    BenchmarkData.DESCRIPTION,
+                    Timestamp.valueOf(now.plusHours(1 + random.nextInt(24 * 365))),
+                    1 + random.nextInt(USERS),
+                    i,
+                    random.nextBoolean(),
+                    limit,
+                    random.nextBoolean(),
+                    random.nextInt(5) == 0 ? "PENDING" : "PUBLISHED",
+                    "Событие " + i,
+                    limit == 0 ? random.nextInt(200) : random.nextInt(limit + 1),
+                    random.nextInt(10_000)
+            });
+        }
+        jdbc.batchUpdate("INSERT INTO locations (lat, lon) VALUES (?, ?)", locations);
+        jdbc.batchUpdate("INSERT INTO events (annotation, category_id, created_on, description, event_date, " +
+                "initiator_id, location_id, paid, participation_limit, request_moderation, state, title, " +
+                "confirmed_requests, views) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", eventRows);
+
+        List<Object[]> compilations = new ArrayList<>();
+        List<Object[]> compilationEvents = new ArrayList<>();
+        for (int i = 1; i <= COMPILATIONS; i++) {
+            compilations.add(new Object[]{random.nextBoolean(), "Подборка " + i});
+            for (int j = 0; j < EVENTS_PER_COMPILATION; j++) {
+                compilationEvents.add(new Object[]{1 + random.nextInt(events), i});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO compilations (pinned, title) VALUES (?, ?)", compilations);
+        jdbc.batchUpdate("INSERT INTO compilations_events (event_id, compilation_id) VALUES (?, ?)",
+                compilationEvents);
+    }
+
+    private static HttpServer startStatsStub() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stats", exchange -> {
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/hit", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+}
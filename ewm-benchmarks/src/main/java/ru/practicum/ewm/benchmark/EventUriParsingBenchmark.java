@@ -0,0 +1,57 @@
+package ru.practicum.ewm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.practicum.ewm.service.event.EventStatsEnricher;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Разбор ViewStats.uri в id события для страницы из 500 uri, часть — не события
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventUriParsingBenchmark {
+    private String[] uris;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        uris = new String[500];
+        for (int i = 0; i < uris.length; i++) {
+            uris[i] = random.nextInt(10) == 0 ? "/events" : "/events/" + random.nextInt(1_000_000);
+        }
+    }
+
+    @Benchmark
+    public void parseEventId(Blackhole blackhole) {
+        for (String uri : uris) {
+            blackhole.consume(EventStatsEnricher.parseEventId(uri));
+        }
+    }
+
+    // для сравнения: split и исключение на нечисловом хвосте
+    @Benchmark
+    public void splitAndParse(Blackhole blackhole) {
+        for (String uri : uris) {
+            String[] parts = uri.split("/");
+            try {
+                blackhole.consume(Long.parseLong(parts[parts.length - 1]));
+            } catch (NumberFormatException e) {
+                blackhole.consume(null);
+            }
+        }
+    }
+}
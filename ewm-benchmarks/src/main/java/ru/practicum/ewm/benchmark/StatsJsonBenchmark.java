@@ -0,0 +1,65 @@
+package ru.practicum.ewm.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.statsdto.EndpointHit;
+import ru.practicum.statsdto.ViewStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON обмена со статистикой так же, как в StatsClient: пачка хитов для /hit/batch и ответ /stats
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsJsonBenchmark {
+    private static final TypeReference<List<ViewStats>> VIEW_STATS_LIST = new TypeReference<>() {
+    };
+
+    // размер пачки хитов и число uri в ответе статистики
+    @Param({"10", "100", "500"})
+    private int size;
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    private List<EndpointHit> hits;
+    private String viewStatsJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        hits = new ArrayList<>(size);
+        List<ViewStats> viewStats = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + i, "192.168.0." + (i % 256),
+                    "2030-01-01 10:00:00"));
+            viewStats.add(new ViewStats("ewm-main-service", "/events/" + i, 1000L - i));
+        }
+        viewStatsJson = json.writeValueAsString(viewStats);
+    }
+
+    @Benchmark
+    public String writeHitBatch() throws JsonProcessingException {
+        return json.writeValueAsString(hits);
+    }
+
+    @Benchmark
+    public List<ViewStats> readViewStats() throws JsonProcessingException {
+        return json.readValue(viewStatsJson, VIEW_STATS_LIST);
+    }
+}
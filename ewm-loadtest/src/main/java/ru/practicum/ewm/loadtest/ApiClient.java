@@ -0,0 +1,82 @@
+package ru.practicum.ewm.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Тонкая обертка над HttpClient: один клиент на весь прогон, соединения переиспользуются
+public class ApiClient {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper json;
+
+    public ApiClient(ObjectMapper json) {
+        this.json = json;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public HttpRequest get(String url) {
+        return request(url).GET().build();
+    }
+
+    public HttpRequest post(String url, Object body) {
+        return request(url).POST(HttpRequest.BodyPublishers.ofString(write(body))).build();
+    }
+
+    public HttpRequest patch(String url, Object body) {
+        return request(url).method("PATCH", HttpRequest.BodyPublishers.ofString(write(body))).build();
+    }
+
+    // запрос с проверкой статуса — для заполнения данных, где ошибка означает сломанный прогон
+    public JsonNode send(HttpRequest request, int expectedStatus) {
+        HttpResponse<String> response = execute(request);
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " вернул "
+                    + response.statusCode() + ": " + response.body());
+        }
+        try {
+            return response.body().isEmpty() ? json.nullNode() : json.readTree(response.body());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // тело ответа читается целиком, чтобы в замер попадала и передача данных
+    public HttpResponse<String> execute(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(request.method() + " " + request.uri(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Запрос прерван: " + request.uri(), e);
+        }
+    }
+
+    private HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    private String write(Object body) {
+        try {
+            return json.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
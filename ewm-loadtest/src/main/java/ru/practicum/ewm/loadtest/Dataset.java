@@ -0,0 +1,15 @@
+package ru.practicum.ewm.loadtest;
+
+import java.util.List;
+
+// Идентификаторы созданных сущностей: по ним сценарии собирают запросы.
+// Сохраняется в файл, чтобы повторный прогон по тем же данным не заполнял базу заново
+public record Dataset(List<Long> userIds,
+                      List<Long> categoryIds,
+                      List<OwnedEvent> events,
+                      List<Long> publishedEventIds,
+                      List<Long> compilationIds) {
+
+    public record OwnedEvent(long userId, long eventId) {
+    }
+}
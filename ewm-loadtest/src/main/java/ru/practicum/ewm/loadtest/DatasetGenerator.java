@@ -0,0 +1,207 @@
+package ru.practicum.ewm.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.statsdto.EndpointHit;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+// Заполняет оба сервиса через их публичный API, поэтому работает одинаково с H2 и Postgres.
+// Содержимое i-й сущности зависит только от seed и i, поэтому при одном seed набор данных
+// совпадает между прогонами независимо от того, в каком порядке потоки отправят запросы
+@Slf4j
+@RequiredArgsConstructor
+public class DatasetGenerator {
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String APP = "ewm-main-service";
+    private static final int IP_POOL = 50_000;
+    private static final int HIT_DAYS = 90;
+    private static final String TEXT = ("Городской фестиваль уличной музыки, лекции о современном искусстве, "
+            + "мастер-классы по фотографии и прогулки по историческому центру. Участники знакомятся с "
+            + "местными музыкантами, художниками и гидами, обсуждают маршруты и делятся впечатлениями. ").repeat(8);
+
+    private final LoadTestConfig config;
+    private final ApiClient api;
+
+    public Dataset generate() {
+        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
+        try {
+            List<Long> userIds = inParallel(executor, "пользователи", config.getUsers(), this::createUser);
+            List<Long> categoryIds = inParallel(executor, "категории", config.getCategories(), this::createCategory);
+            List<Dataset.OwnedEvent> events = inParallel(executor, "события", config.getEvents(),
+                    i -> createEvent(i, userIds, categoryIds));
+
+            // около 80% событий публикуются, остальные остаются на модерации
+            List<Long> published = inParallel(executor, "публикация", events.size(),
+                    i -> random("publish", i).nextInt(5) == 0 ? null : publishEvent(events.get(i).eventId()))
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .toList();
+            if (published.isEmpty()) {
+                throw new IllegalStateException("Нет опубликованных событий: увеличьте events");
+            }
+
+            inParallel(executor, "заявки", config.getRequests(), i -> createRequest(i, userIds, published));
+            inParallel(executor, "комментарии", config.getComments(), i -> createComment(i, userIds, published));
+            List<Long> compilationIds = inParallel(executor, "подборки", config.getCompilations(),
+                    i -> createCompilation(i, published));
+
+            int batches = (int) ((config.getHits() + config.getHitBatchSize() - 1) / config.getHitBatchSize());
+            inParallel(executor, "хиты (пачки)", batches, i -> sendHits(i, published));
+
+            return new Dataset(userIds, categoryIds, events, published, compilationIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Long createUser(int i) {
+        Map<String, Object> body = Map.of(
+                "name", "Пользователь " + config.getSeed() + "-" + i,
+                "email", "loadtest-" + config.getSeed() + "-" + i + "@example.com");
+        return api.send(api.post(config.getEwmUrl() + "/admin/users", body), 201).get("id").asLong();
+    }
+
+    private Long createCategory(int i) {
+        Map<String, Object> body = Map.of("name", "Категория " + config.getSeed() + "-" + i);
+        return api.send(api.post(config.getEwmUrl() + "/admin/categories", body), 201).get("id").asLong();
+    }
+
+    private Dataset.OwnedEvent createEvent(int i, List<Long> userIds, List<Long> categoryIds) {
+        Random random = random("event", i);
+        long userId = pick(random, userIds);
+        // у четверти событий нет лимита участников
+        int limit = random.nextInt(4) == 0 ? 0 : 5 + random.nextInt(100);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("annotation", "Аннотация события " + i + ": " + TEXT.substring(0, 40 + random.nextInt(200)));
+        body.put("description", "Описание события " + i + ": " + TEXT.substring(0, 100 + random.nextInt(TEXT.length() - 100)));
+        body.put("title", "Событие " + i);
+        body.put("category", pick(random, categoryIds));
+        body.put("eventDate", LocalDateTime.now().plusHours(3 + random.nextInt(24 * 365)).format(DTF));
+        body.put("location", Map.of("lat", 55.5f + random.nextFloat(), "lon", 37.3f + random.nextFloat()));
+        body.put("paid", random.nextBoolean());
+        body.put("participantLimit", limit);
+        body.put("requestModeration", random.nextInt(3) == 0);
+
+        JsonNode event = api.send(api.post(config.getEwmUrl() + "/users/" + userId + "/events", body), 201);
+        return new Dataset.OwnedEvent(userId, event.get("id").asLong());
+    }
+
+    private Long publishEvent(long eventId) {
+        api.send(api.patch(config.getEwmUrl() + "/admin/events/" + eventId,
+                Map.of("stateAction", "PUBLISH_EVENT")), 200);
+        return eventId;
+    }
+
+    // 409 — повторная заявка, своя заявка или исчерпанный лимит; для нагрузки это нормально
+    private Long createRequest(int i, List<Long> userIds, List<Long> published) {
+        Random random = random("request", i);
+        HttpRequest request = api.post(config.getEwmUrl() + "/users/" + pick(random, userIds)
+                + "/requests?eventId=" + pickSkewed(random, published), Map.of());
+        HttpResponse<String> response = api.execute(request);
+        if (response.statusCode() != 201 && response.statusCode() != 409) {
+            throw new IllegalStateException(request.uri() + " вернул " + response.statusCode() + ": " + response.body());
+        }
+        return null;
+    }
+
+    private Long createComment(int i, List<Long> userIds, List<Long> published) {
+        Random random = random("comment", i);
+        Map<String, Object> body = Map.of("commentText", "Комментарий " + i + ": " + TEXT.substring(0, 20 + random.nextInt(200)));
+        return api.send(api.post(config.getEwmUrl() + "/users/" + pick(random, userIds)
+                + "/comments?eventId=" + pickSkewed(random, published), body), 201).get("id").asLong();
+    }
+
+    private Long createCompilation(int i, List<Long> published) {
+        Random random = random("compilation", i);
+        Set<Long> eventIds = new HashSet<>();
+        int size = 3 + random.nextInt(15);
+        for (int j = 0; j < size; j++) {
+            eventIds.add(pick(random, published));
+        }
+        Map<String, Object> body = Map.of(
+                "title", "Подборка " + i,
+                "pinned", random.nextInt(4) == 0,
+                "events", eventIds);
+        return api.send(api.post(config.getEwmUrl() + "/admin/compilations", body), 201).get("id").asLong();
+    }
+
+    // просмотры распределены неравномерно: немногие популярные события собирают большую часть хитов
+    private Long sendHits(int batch, List<Long> published) {
+        Random random = random("hits", batch);
+        long from = (long) batch * config.getHitBatchSize();
+        int size = (int) Math.min(config.getHitBatchSize(), config.getHits() - from);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<EndpointHit> hits = new ArrayList<>(size);
+        for (int j = 0; j < size; j++) {
+            String uri = random.nextInt(5) == 0 ? "/events" : "/events/" + pickSkewed(random, published);
+            int ip = random.nextInt(IP_POOL);
+            hits.add(EndpointHit.builder()
+                    .app(APP)
+                    .uri(uri)
+                    .ip("10." + (ip >> 16) + "." + ((ip >> 8) & 0xff) + "." + (ip & 0xff))
+                    .timestamp(now.minusSeconds(random.nextInt(HIT_DAYS * 24 * 3600)).format(DTF))
+                    .build());
+        }
+        api.send(api.post(config.getStatsUrl() + "/hit/batch", hits), 201);
+        return null;
+    }
+
+    private <T> List<T> inParallel(ExecutorService executor, String name, int count, IntFunction<T> task) {
+        log.info("Заполнение: {} — {}", name, count);
+        AtomicLong done = new AtomicLong();
+        long step = Math.max(1, count / 10);
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                T result = task.apply(index);
+                long completed = done.incrementAndGet();
+                if (completed % step == 0) {
+                    log.info("  {}: {}/{}", name, completed, count);
+                }
+                return result;
+            }));
+        }
+
+        List<T> results = new ArrayList<>(count);
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Заполнение прервано", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Заполнение остановлено: " + name, e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private Random random(String kind, int index) {
+        return new Random(Objects.hash(config.getSeed(), kind, index));
+    }
+
+    private static long pick(Random random, List<Long> ids) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    // куб равномерной величины смещает выбор к началу списка
+    static long pickSkewed(Random random, List<Long> ids) {
+        double u = random.nextDouble();
+        return ids.get((int) (u * u * u * ids.size()));
+    }
+}
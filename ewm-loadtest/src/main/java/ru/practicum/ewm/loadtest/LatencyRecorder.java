@@ -0,0 +1,47 @@
+package ru.practicum.ewm.loadtest;
+
+import java.util.Arrays;
+
+// Задержки одного сценария в одном потоке; потоки пишут каждый в свой экземпляр,
+// в конце прогона экземпляры сливаются, поэтому синхронизация не нужна
+public class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    public void record(long nanos, boolean error) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (error) {
+            errors++;
+        }
+    }
+
+    public void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.latencies[i], false);
+        }
+        errors += other.errors;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long errors() {
+        return errors;
+    }
+
+    // перцентиль по отсортированной копии; q от 0 до 1
+    public double percentileMillis(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(q * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.ewm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Итог прогона по каждому сценарию и в целом: число запросов, ошибки, пропускная способность, p50/p99
+@Slf4j
+public class LoadReport {
+    private final List<Row> rows = new ArrayList<>();
+
+    public record Row(String scenario, int requests, long errors, double throughput,
+                      double p50Millis, double p99Millis, double maxMillis) {
+    }
+
+    public LoadReport(LoadTestConfig config, Map<String, LatencyRecorder> recorders) {
+        double seconds = config.getDuration().toMillis() / 1000.0;
+        LatencyRecorder total = new LatencyRecorder();
+        recorders.forEach((name, recorder) -> {
+            rows.add(row(name, recorder, seconds));
+            total.merge(recorder);
+        });
+        rows.add(row("total", total, seconds));
+    }
+
+    public List<Row> rows() {
+        return rows;
+    }
+
+    public void print() {
+        log.info(String.format(Locale.ROOT, "%-22s %9s %7s %9s %9s %9s %9s",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms"));
+        for (Row row : rows) {
+            log.info(String.format(Locale.ROOT, "%-22s %9d %7d %9.1f %9.2f %9.2f %9.2f",
+                    row.scenario(), row.requests(), row.errors(), row.throughput(),
+                    row.p50Millis(), row.p99Millis(), row.maxMillis()));
+        }
+    }
+
+    public void write(ObjectMapper json, Path path) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            json.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), rows);
+            log.info("Отчет сохранен: {}", path.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удается сохранить отчет " + path, e);
+        }
+    }
+
+    private static Row row(String name, LatencyRecorder recorder, double seconds) {
+        return new Row(name, recorder.count(), recorder.errors(), recorder.count() / seconds,
+                recorder.percentileMillis(0.5), recorder.percentileMillis(0.99), recorder.percentileMillis(1.0));
+    }
+}
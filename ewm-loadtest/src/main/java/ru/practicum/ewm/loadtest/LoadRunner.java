@@ -0,0 +1,85 @@
+package ru.practicum.ewm.loadtest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Замкнутая модель нагрузки: каждый поток отправляет следующий запрос сразу после ответа на предыдущий.
+// Запросы прогрева выполняются, но в замеры не попадают
+@Slf4j
+@RequiredArgsConstructor
+public class LoadRunner {
+    private final LoadTestConfig config;
+    private final ScenarioMix mix;
+    private final ApiClient api;
+
+    public LoadReport run() {
+        long start = System.nanoTime();
+        long measureFrom = start + config.getWarmup().toNanos();
+        long measureTo = measureFrom + config.getDuration().toNanos();
+        log.info("Нагрузка: {} потоков, прогрев {}, замер {}", config.getThreads(), config.getWarmup(), config.getDuration());
+
+        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
+        List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+        for (int t = 0; t < config.getThreads(); t++) {
+            Random random = new Random(config.getSeed() * 31 + t);
+            futures.add(executor.submit(() -> worker(random, measureFrom, measureTo)));
+        }
+
+        Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+        mix.scenarios().forEach(scenario -> merged.put(scenario.name(), new LatencyRecorder()));
+        try {
+            for (Future<Map<String, LatencyRecorder>> future : futures) {
+                future.get().forEach((name, recorder) -> merged.get(name).merge(recorder));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прогон прерван", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Поток нагрузки завершился с ошибкой", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new LoadReport(config, merged);
+    }
+
+    private Map<String, LatencyRecorder> worker(Random random, long measureFrom, long measureTo) {
+        Map<String, LatencyRecorder> recorders = new HashMap<>();
+        while (true) {
+            Scenario scenario = mix.next(random);
+            long begin = System.nanoTime();
+            if (begin >= measureTo) {
+                return recorders;
+            }
+
+            boolean error;
+            try {
+                HttpResponse<String> response = api.execute(scenario.request().apply(random));
+                error = !scenario.expectedStatuses().contains(response.statusCode());
+                if (error && log.isDebugEnabled()) {
+                    log.debug("{}: {} {}", scenario.name(), response.statusCode(), response.body());
+                }
+            } catch (RuntimeException e) {
+                error = true;
+                log.debug("{}: {}", scenario.name(), e.toString());
+            }
+
+            long end = System.nanoTime();
+            // запрос, начатый в прогреве, не считается: его задержка искажена разогревом сервиса
+            if (begin >= measureFrom) {
+                recorders.computeIfAbsent(scenario.name(), name -> new LatencyRecorder()).record(end - begin, error);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.ewm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+// Нагрузочный прогон против запущенных ewm-service и stats-server:
+// заполнение данных через API (или загрузка ранее сохраненного набора), затем смесь запросов и отчет.
+// Пример: events=20000 hits=5000000 threads=32 duration=120s mix=stats:0
+@Slf4j
+public class LoadTestApp {
+
+    public static void main(String[] args) {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        ObjectMapper json = new ObjectMapper();
+        ApiClient api = new ApiClient(json);
+
+        Dataset dataset = config.isSkipSeed() ? readDataset(json, config) : seed(json, api, config);
+
+        ScenarioMix mix = new ScenarioMix(config, dataset, api);
+        LoadReport report = new LoadRunner(config, mix, api).run();
+        report.print();
+        report.write(json, config.getReport());
+    }
+
+    private static Dataset seed(ObjectMapper json, ApiClient api, LoadTestConfig config) {
+        long start = System.nanoTime();
+        Dataset dataset = new DatasetGenerator(config, api).generate();
+        log.info("Набор данных создан за {} с", (System.nanoTime() - start) / 1_000_000_000);
+        try {
+            if (config.getDataset().getParent() != null) {
+                Files.createDirectories(config.getDataset().getParent());
+            }
+            json.writeValue(config.getDataset().toFile(), dataset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удается сохранить набор данных " + config.getDataset(), e);
+        }
+        return dataset;
+    }
+
+    // повторный прогон по тем же данным: skip-seed=true
+    private static Dataset readDataset(ObjectMapper json, LoadTestConfig config) {
+        try {
+            return json.readValue(config.getDataset().toFile(), Dataset.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удается прочитать набор данных " + config.getDataset()
+                    + ", сначала выполните прогон без skip-seed", e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.ewm.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Параметры прогона; задаются аргументами вида key=value, без аргументов — небольшой набор данных
+@Value
+@Builder
+public class LoadTestConfig {
+    private static final Set<String> KNOWN_KEYS = Set.of(
+            "ewm-url", "stats-url", "seed", "users", "categories", "events", "requests", "comments",
+            "compilations", "hits", "hit-batch-size", "skip-seed", "dataset",
+            "threads", "warmup", "duration", "mix", "report");
+
+    String ewmUrl;
+    String statsUrl;
+    long seed;
+
+    // объем набора данных
+    int users;
+    int categories;
+    int events;
+    int requests;
+    int comments;
+    int compilations;
+    long hits;
+    int hitBatchSize;
+    boolean skipSeed;
+    Path dataset;
+
+    // нагрузка
+    int threads;
+    Duration warmup;
+    Duration duration;
+    Map<String, Integer> mix;
+    Path report;
+
+    public static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Ожидается аргумент вида key=value: " + arg);
+            }
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestConfig config = LoadTestConfig.builder()
+                .ewmUrl(values.getOrDefault("ewm-url", "http://localhost:8080"))
+                .statsUrl(values.getOrDefault("stats-url", "http://localhost:9090"))
+                .seed(Long.parseLong(values.getOrDefault("seed", "42")))
+                .users(Integer.parseInt(values.getOrDefault("users", "200")))
+                .categories(Integer.parseInt(values.getOrDefault("categories", "20")))
+                .events(Integer.parseInt(values.getOrDefault("events", "2000")))
+                .requests(Integer.parseInt(values.getOrDefault("requests", "5000")))
+                .comments(Integer.parseInt(values.getOrDefault("comments", "3000")))
+                .compilations(Integer.parseInt(values.getOrDefault("compilations", "30")))
+                .hits(Long.parseLong(values.getOrDefault("hits", "1000000")))
+                .hitBatchSize(Integer.parseInt(values.getOrDefault("hit-batch-size", "1000")))
+                .skipSeed(Boolean.parseBoolean(values.getOrDefault("skip-seed", "false")))
+                .dataset(Path.of(values.getOrDefault("dataset", "target/loadtest-dataset.json")))
+                .threads(Integer.parseInt(values.getOrDefault("threads", "16")))
+                .warmup(parseDuration(values.getOrDefault("warmup", "15s")))
+                .duration(parseDuration(values.getOrDefault("duration", "60s")))
+                .mix(parseMix(values.get("mix")))
+                .report(Path.of(values.getOrDefault("report", "target/loadtest-report.json")))
+                .build();
+
+        values.keySet().removeAll(KNOWN_KEYS);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Неизвестные параметры: " + values.keySet());
+        }
+        return config;
+    }
+
+    // 30s, 2m или количество секунд
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    // mix=public-events:40,public-event:30 переопределяет веса сценариев, 0 выключает сценарий
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return mix;
+        }
+        for (String part : value.split(",")) {
+            String[] nameAndWeight = part.split(":");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Ожидается сценарий вида name:weight: " + part);
+            }
+            mix.put(nameAndWeight[0].trim(), Integer.parseInt(nameAndWeight[1].trim()));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.ewm.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+// Один вид запроса в смеси нагрузки: вес задает долю в общем потоке,
+// expectedStatuses — ответы, которые не считаются ошибкой
+public record Scenario(String name,
+                       int weight,
+                       Set<Integer> expectedStatuses,
+                       Function<Random, HttpRequest> request) {
+
+    public Scenario withWeight(int weight) {
+        return new Scenario(name, weight, expectedStatuses, request);
+    }
+}
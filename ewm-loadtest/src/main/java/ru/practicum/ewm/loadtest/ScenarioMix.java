@@ -0,0 +1,144 @@
+package ru.practicum.ewm.loadtest;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Смесь запросов, похожая на боевую: в основном публичное чтение, меньше личного кабинета,
+// немного админки и прямых запросов к статистике. Набор эндпоинтов повторяет спецификации
+// ewm-main-service-spec.json и ewm-stats-service-spec.json
+public class ScenarioMix {
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Set<Integer> OK = Set.of(200);
+    private static final String[] SEARCH_WORDS = {"фестиваль", "музыки", "фотографии", "искусстве", "прогулки"};
+
+    private final List<Scenario> scenarios;
+    private final int[] cumulativeWeights;
+
+    public ScenarioMix(LoadTestConfig config, Dataset dataset, ApiClient api) {
+        List<Scenario> defaults = defaults(config.getEwmUrl(), config.getStatsUrl(), dataset, api);
+
+        for (String name : config.getMix().keySet()) {
+            if (defaults.stream().noneMatch(scenario -> scenario.name().equals(name))) {
+                throw new IllegalArgumentException("Неизвестный сценарий в mix: " + name);
+            }
+        }
+        this.scenarios = defaults.stream()
+                .map(scenario -> scenario.withWeight(config.getMix().getOrDefault(scenario.name(), scenario.weight())))
+                .filter(scenario -> scenario.weight() > 0)
+                .toList();
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("Все сценарии выключены");
+        }
+
+        this.cumulativeWeights = new int[scenarios.size()];
+        int total = 0;
+        for (int i = 0; i < scenarios.size(); i++) {
+            total += scenarios.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public List<Scenario> scenarios() {
+        return scenarios;
+    }
+
+    public Scenario next(Random random) {
+        int point = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return scenarios.get(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static List<Scenario> defaults(String ewm, String stats, Dataset dataset, ApiClient api) {
+        List<Scenario> list = new ArrayList<>();
+
+        // public
+        list.add(new Scenario("public-events", 30, OK, random -> api.get(ewm + "/events" + publicEventsQuery(random, dataset))));
+        list.add(new Scenario("public-event", 25, OK, random ->
+                api.get(ewm + "/events/" + DatasetGenerator.pickSkewed(random, dataset.publishedEventIds()))));
+        list.add(new Scenario("event-comments", 5, OK, random ->
+                api.get(ewm + "/events/" + DatasetGenerator.pickSkewed(random, dataset.publishedEventIds()) + "/comments")));
+        list.add(new Scenario("categories", 4, OK, random -> api.get(ewm + "/categories?from=0&size=10")));
+        list.add(new Scenario("compilations", 5, OK, random ->
+                api.get(ewm + "/compilations?from=0&size=10" + (random.nextBoolean() ? "&pinned=true" : ""))));
+        if (!dataset.compilationIds().isEmpty()) {
+            list.add(new Scenario("compilation", 3, OK, random ->
+                    api.get(ewm + "/compilations/" + pick(random, dataset.compilationIds()))));
+        }
+
+        // private
+        list.add(new Scenario("user-events", 5, OK, random -> {
+            Dataset.OwnedEvent event = pick(random, dataset.events());
+            return api.get(ewm + "/users/" + event.userId() + "/events?from=0&size=10");
+        }));
+        list.add(new Scenario("user-event", 3, OK, random -> {
+            Dataset.OwnedEvent event = pick(random, dataset.events());
+            return api.get(ewm + "/users/" + event.userId() + "/events/" + event.eventId());
+        }));
+        list.add(new Scenario("user-event-requests", 3, OK, random -> {
+            Dataset.OwnedEvent event = pick(random, dataset.events());
+            return api.get(ewm + "/users/" + event.userId() + "/events/" + event.eventId() + "/requests");
+        }));
+        list.add(new Scenario("user-requests", 4, OK, random -> api.get(ewm + "/users/" + pick(random, dataset.userIds()) + "/requests")));
+        // 409 — повторная заявка или исчерпанный лимит, сервис ответил штатно
+        list.add(new Scenario("request-create", 2, Set.of(201, 409), random ->
+                api.post(ewm + "/users/" + pick(random, dataset.userIds()) + "/requests?eventId="
+                        + DatasetGenerator.pickSkewed(random, dataset.publishedEventIds()), Map.of())));
+
+        // admin
+        list.add(new Scenario("admin-events", 5, OK, random ->
+                api.get(ewm + "/admin/events?states=PUBLISHED,PENDING&categories=" + pick(random, dataset.categoryIds())
+                        + "&from=0&size=10")));
+        list.add(new Scenario("admin-users", 1, OK, random -> api.get(ewm + "/admin/users?from=0&size=10")));
+
+        // stats
+        list.add(new Scenario("stats", 5, OK, random -> {
+            LocalDateTime now = LocalDateTime.now();
+            String uri = "/events/" + DatasetGenerator.pickSkewed(random, dataset.publishedEventIds());
+            return api.get(stats + "/stats?start=" + encode(now.minusDays(30).format(DTF)) + "&end=" + encode(now.format(DTF))
+                    + "&uris=" + encode(uri) + "&unique=" + random.nextBoolean());
+        }));
+        return list;
+    }
+
+    // как ищут пользователи: иногда по тексту и категориям, чаще просто листают первую страницу
+    private static String publicEventsQuery(Random random, Dataset dataset) {
+        StringBuilder query = new StringBuilder("?size=10");
+        if (random.nextInt(4) == 0) {
+            query.append("&text=").append(encode(SEARCH_WORDS[random.nextInt(SEARCH_WORDS.length)]));
+        }
+        if (random.nextInt(3) == 0) {
+            query.append("&categories=").append(pick(random, dataset.categoryIds()));
+        }
+        if (random.nextInt(4) == 0) {
+            query.append("&onlyAvailable=true");
+        }
+        if (random.nextInt(3) == 0) {
+            query.append("&sort=VIEWS&from=0");
+        } else if (random.nextBoolean()) {
+            query.append("&sort=EVENT_DATE&cursor=");
+        } else {
+            query.append("&sort=EVENT_DATE&from=").append(10 * random.nextInt(5));
+        }
+        return query.toString();
+    }
+
+    private static <T> T pick(Random random, List<T> items) {
+        return items.get(random.nextInt(items.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -3,9 +3,11 @@ package ru.practicum.ewm;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 @ComponentScan(basePackages = {
         "ru.practicum.ewm",
         "ru.practicum.statsclient"   // ← добавьте этот пакет
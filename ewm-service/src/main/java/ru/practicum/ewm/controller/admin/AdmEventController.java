@@ -1,5 +1,6 @@
 package ru.practicum.ewm.controller.admin;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,6 +8,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.dto.event.AdminEventFilter;
 import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.UpdateEventAdminRequest;
+import ru.practicum.ewm.dto.page.CursorPage;
 import ru.practicum.ewm.service.event.EventService;
 
 import java.util.List;
@@ -20,9 +22,14 @@ public class AdmEventController {
 
     // Поиск событий
     @GetMapping
-    public List<EventFullDto> getEventListByAdmin(@ModelAttribute AdminEventFilter filter) {
+    public List<EventFullDto> getEventListByAdmin(@ModelAttribute AdminEventFilter filter,
+                                                  HttpServletResponse response) {
         log.info("AdmEventController / getEventListByAdmin: Поиск событий {}", filter);
-        return eventService.getEventsByAdmin(filter);
+        CursorPage<EventFullDto> page = eventService.getEventsByAdmin(filter);
+        if (page.nextCursor() != null) {
+            response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.items();
     }
 
 
@@ -1,5 +1,6 @@
 package ru.practicum.ewm.controller.priv;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -12,6 +13,7 @@ import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.EventShortDto;
 import ru.practicum.ewm.dto.event.NewEventDto;
 import ru.practicum.ewm.dto.event.UpdateEventUserRequest;
+import ru.practicum.ewm.dto.page.CursorPage;
 import ru.practicum.ewm.dto.request.EventRequestStatusUpdateRequest;
 import ru.practicum.ewm.dto.request.EventRequestStatusUpdateResult;
 import ru.practicum.ewm.dto.request.ParticipationRequestDto;
@@ -31,10 +33,16 @@ public class PrivateEventController {
     @GetMapping
     public List<EventShortDto> getEventsByInitiator(@PathVariable Long userId,
                                                     @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
-                                                    @RequestParam(name = "size", defaultValue = "10") @Positive Integer size) {
+                                                    @RequestParam(name = "size", defaultValue = "10") @Positive Integer size,
+                                                    @RequestParam(name = "cursor", required = false) String cursor,
+                                                    HttpServletResponse response) {
         log.info("PrivateEventController / getEventsByInitiator: получение событий текущего пользователя "
                 + userId + from + size);
-        return eventService.getEventsByInitiator(userId, PageRequest.of(from, size));
+        CursorPage<EventShortDto> page = eventService.getEventsByInitiator(userId, PageRequest.of(from, size), cursor);
+        if (page.nextCursor() != null) {
+            response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.items();
     }
 
     // добавление нового события
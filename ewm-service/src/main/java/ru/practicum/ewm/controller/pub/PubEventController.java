@@ -1,6 +1,7 @@
 package ru.practicum.ewm.controller.pub;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -8,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.EventShortDto;
 import ru.practicum.ewm.dto.event.PublicEventFilter;
+import ru.practicum.ewm.dto.page.CursorPage;
 import ru.practicum.ewm.service.event.EventService;
 
 import java.util.List;
@@ -22,14 +24,19 @@ public class PubEventController {
     // получение событий с возможностью фильтрации
     @GetMapping
     public List<EventShortDto> getEventList(@ModelAttribute PublicEventFilter filter,
-                                            HttpServletRequest request) {
+                                            HttpServletRequest request,
+                                            HttpServletResponse response) {
 
         filter.setUserIp(request.getRemoteAddr());
         filter.setRequestUri(request.getRequestURI());
 
         log.info("PubEventController / getEventList: {}", filter);
 
-        return eventService.getEventList(filter);
+        CursorPage<EventShortDto> page = eventService.getEventList(filter);
+        if (page.nextCursor() != null) {
+            response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.items();
     }
 
 
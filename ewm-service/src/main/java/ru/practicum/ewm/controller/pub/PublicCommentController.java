@@ -1,11 +1,13 @@
 package ru.practicum.ewm.controller.pub;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.dto.comment.CommentDto;
+import ru.practicum.ewm.dto.page.CursorPage;
 import ru.practicum.ewm.service.comment.CommentService;
 
 import java.util.List;
@@ -20,10 +22,16 @@ public class PublicCommentController {
     @GetMapping("/{eventId}/comments")
     public List<CommentDto> getAllComments(@PathVariable Long eventId,
                                            @RequestParam(defaultValue = "0") int from,
-                                           @RequestParam(defaultValue = "10") int size) {
+                                           @RequestParam(defaultValue = "10") int size,
+                                           @RequestParam(required = false) String cursor,
+                                           HttpServletResponse response) {
         log.info("PublicCommentController / getAllComments: получение комментариев к событию {}", eventId);
         Pageable pageable = PageRequest.of(from / size, size);
-        return commentService.getAllCommentsToEvent(eventId, pageable);
+        CursorPage<CommentDto> page = commentService.getAllCommentsToEvent(eventId, pageable, cursor);
+        if (page.nextCursor() != null) {
+            response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.items();
     }
 }
 
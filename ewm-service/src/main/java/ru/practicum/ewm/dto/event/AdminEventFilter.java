@@ -13,5 +13,7 @@ public class AdminEventFilter {
     private String rangeEnd;
     private Integer from = 0;
     private Integer size = 10;
+    // задан (в том числе пустой) — keyset-пагинация вместо from
+    private String cursor;
 }
 
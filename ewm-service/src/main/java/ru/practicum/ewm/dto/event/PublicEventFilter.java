@@ -15,6 +15,8 @@ public class PublicEventFilter {
     private String sort;
     private Integer from = 0;
     private Integer size = 10;
+    // задан (в том числе пустой) — keyset-пагинация вместо from
+    private String cursor;
     private String userIp;
     private String requestUri;
 }
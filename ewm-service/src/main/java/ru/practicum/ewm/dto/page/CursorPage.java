@@ -0,0 +1,24 @@
+package ru.practicum.ewm.dto.page;
+
+import ru.practicum.ewm.model.KeysetCursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Страница без подсчета общего количества: nextCursor == null — дальше данных нет
+public record CursorPage<T>(List<T> items, String nextCursor) {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // rows выбраны с запасом в одну строку: если она пришла, следующая страница есть
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+
+    public <R> CursorPage<R> map(Function<List<T>, List<R>> mapper) {
+        return new CursorPage<>(mapper.apply(items), nextCursor);
+    }
+}
@@ -6,6 +6,7 @@ import ru.practicum.ewm.dto.event.EventFullDto;
 import ru.practicum.ewm.dto.event.EventShortDto;
 import ru.practicum.ewm.dto.event.NewEventDto;
 import ru.practicum.ewm.model.Event;
+import ru.practicum.ewm.model.EventShortView;
 
 import java.util.List;
 
@@ -13,10 +14,19 @@ import java.util.List;
 public interface EventMapper {
 
     @Mapping(source = "category", target = "category.id")
+    @Mapping(target = "confirmedRequests", ignore = true)
+    @Mapping(target = "views", ignore = true)
     Event toEvent(NewEventDto newEventDto);
 
     EventShortDto toEventShortDto(Event event);
 
+    @Mapping(source = "categoryId", target = "category.id")
+    @Mapping(source = "categoryName", target = "category.name")
+    @Mapping(source = "initiatorId", target = "initiator.id")
+    @Mapping(source = "initiatorName", target = "initiator.name")
+    @Mapping(target = "views", ignore = true)
+    EventShortDto toEventShortDto(EventShortView eventShortView);
+
     EventFullDto toEventFullDto(Event event);
 
     List<EventShortDto> toEventShortDtoList(List<Event> eventList);
@@ -21,11 +21,11 @@ public class Comment {
     @Column(name = "created")
     LocalDateTime created; // Дата и время создания комментария
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id")
     Event event; // Cобытие, к которому написан комментарий
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "commentator_id")
     User commentator; // Пользователь, который написал комментарий
 
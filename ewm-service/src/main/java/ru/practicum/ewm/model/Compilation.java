@@ -12,8 +12,17 @@ import java.util.Set;
 @NoArgsConstructor
 @Entity
 @Table(name = "compilations")
+@NamedEntityGraph(name = Compilation.GRAPH_EVENTS,
+        attributeNodes = @NamedAttributeNode(value = "events", subgraph = "event"),
+        subgraphs = @NamedSubgraph(name = "event", attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("initiator")
+        }))
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Compilation {
+    // подборка вместе с событиями и их связями для CompilationDto
+    public static final String GRAPH_EVENTS = "Compilation.events";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
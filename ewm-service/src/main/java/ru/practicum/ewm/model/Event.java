@@ -13,8 +13,22 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Entity
 @Table(name = "events")
+@NamedEntityGraph(name = Event.GRAPH_SUMMARY, attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("initiator")
+})
+@NamedEntityGraph(name = Event.GRAPH_FULL, attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("initiator"),
+        @NamedAttributeNode("location")
+})
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Event {
+    // планы загрузки связей: для EventShortDto и для EventFullDto;
+    // вне них ленивые связи догружает open-in-view (см. application.properties)
+    public static final String GRAPH_SUMMARY = "Event.summary";
+    public static final String GRAPH_FULL = "Event.full";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
@@ -22,7 +36,7 @@ public class Event {
     @Column(name = "annotation", nullable = false)
     String annotation; // Краткое описание события
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", referencedColumnName = "id")
     Category category; // категории к которой относится событие
 
@@ -35,11 +49,11 @@ public class Event {
     @Column(name = "event_date")
     LocalDateTime eventDate; // Дата и время на которые намечено событие (в формате "yyyy-MM-dd HH:mm:ss")
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "initiator_id", referencedColumnName = "id")
     User initiator; // Пользователь (краткая информация)
 
-    @OneToOne(cascade = {CascadeType.ALL})
+    @OneToOne(cascade = {CascadeType.ALL}, fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id", referencedColumnName = "id")
     Location location; // Широта и долгота места проведения события
 
@@ -60,4 +74,12 @@ public class Event {
 
     @Column(name = "title")
     String title; // Заголовок
+
+    // меняется только атомарными UPDATE в EventRepository, поэтому не перезаписывается при save()
+    @Column(name = "confirmed_requests", nullable = false, updatable = false)
+    Long confirmedRequests = 0L; // Количество одобренных заявок на участие
+
+    // снимок просмотров из сервиса статистики для сортировки в SQL, обновляет EventViewsRefresher
+    @Column(name = "views", nullable = false, updatable = false)
+    Long views = 0L;
 }
\ No newline at end of file
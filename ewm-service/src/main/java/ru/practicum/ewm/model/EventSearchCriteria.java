@@ -0,0 +1,24 @@
+package ru.practicum.ewm.model;
+
+import ru.practicum.ewm.enums.SortValue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// параметры поиска событий; null или пустой список — фильтр не применяется,
+// onlyAvailable — только события, где лимит участников еще не исчерпан,
+// sort == null — порядок по умолчанию (релевантность при поиске по тексту, иначе id)
+public record EventSearchCriteria(String text,
+                                  List<Long> users,
+                                  List<String> states,
+                                  List<Long> categories,
+                                  Boolean paid,
+                                  boolean onlyAvailable,
+                                  LocalDateTime rangeStart,
+                                  LocalDateTime rangeEnd,
+                                  SortValue sort) {
+
+    public boolean hasText() {
+        return text != null && !text.isBlank();
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.ewm.model;
+
+import java.time.LocalDateTime;
+
+// строка короткого списка событий: только поля EventShortDto, категория и инициатор — из JOIN
+public record EventShortView(Long id,
+                             String annotation,
+                             Long categoryId,
+                             String categoryName,
+                             Long confirmedRequests,
+                             LocalDateTime eventDate,
+                             Long initiatorId,
+                             String initiatorName,
+                             Boolean paid,
+                             String title) {
+}
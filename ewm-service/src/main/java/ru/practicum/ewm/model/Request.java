@@ -22,11 +22,11 @@ public class Request {
     @Column(name = "created")
     LocalDateTime created; // Дата и время создания заявки
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id")
     Event event; // Идентификатор события
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requester_id")
     User requester; // Идентификатор пользователя, отправившего заявку
 
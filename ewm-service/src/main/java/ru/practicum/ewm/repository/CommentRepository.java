@@ -2,12 +2,27 @@ package ru.practicum.ewm.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.model.Comment;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findAllByEvent_IdOrderByCreatedDesc(Long eventId, Pageable pageable);
 
+    // keyset-страница: новые сверху, строго после последнего выданного (created, id)
+    @Query("SELECT c FROM Comment c " +
+            "WHERE c.event.id = :eventId " +
+            "AND (c.created < :created OR (c.created = :created AND c.id < :id)) " +
+            "ORDER BY c.created DESC, c.id DESC")
+    List<Comment> findPageAfter(@Param("eventId") Long eventId,
+                                @Param("created") LocalDateTime created,
+                                @Param("id") Long id,
+                                Pageable limit);
+
+    List<Comment> findAllByEvent_IdOrderByCreatedDescIdDesc(Long eventId, Pageable limit);
+
 }
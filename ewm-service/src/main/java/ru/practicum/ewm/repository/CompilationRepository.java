@@ -1,16 +1,24 @@
 package ru.practicum.ewm.repository;
 
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.ewm.model.Compilation;
 
+import java.util.List;
+import java.util.Optional;
+
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    Page<Compilation> findAllByPinnedOrderByIdDesc(Boolean pinned, Pageable pageable);
+    // события подборок страницы догружаются пачками (hibernate.default_batch_fetch_size):
+    // JOIN FETCH коллекции вместе с LIMIT пришлось бы выполнять в памяти
+    List<Compilation> findAllByPinnedOrderByIdDesc(Boolean pinned, Pageable pageable);
+
+    List<Compilation> findAllByOrderByIdDesc(Pageable pageable);
 
-    Page<Compilation> findAll(Pageable pageable);
+    @EntityGraph(Compilation.GRAPH_EVENTS)
+    Optional<Compilation> findWithEventsById(Long id);
 
 
 }
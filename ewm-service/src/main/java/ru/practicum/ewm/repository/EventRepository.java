@@ -1,59 +1,71 @@
 package ru.practicum.ewm.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.ewm.enums.EventState;
 import ru.practicum.ewm.model.Event;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventRepositoryCustom {
     boolean existsByCategoryId(Long categoryId);
 
+    @EntityGraph(Event.GRAPH_SUMMARY)
     Set<Event> findAllByIdIn(Set<Long> eventIdList);
 
     // для EventService
-    Page<Event> findAllByInitiatorId(Long userId, Pageable pageable);
-
+    @EntityGraph(Event.GRAPH_FULL)
     Optional<Event> findByIdAndInitiatorId(Long eventId, Long userId);
 
+    @EntityGraph(Event.GRAPH_FULL)
     Optional<Event> findByIdAndState(Long eventId, EventState eventStatus);
 
-    @Query(value = "SELECT * FROM events e " +
-            "WHERE (:text is null OR lower(e.annotation) LIKE lower(concat('%',cast(:text AS text),'%')) " +
-            "OR lower(e.description) LIKE lower(concat('%',cast(:text AS text),'%')))" +
-            "AND (:categories is null or e.category_id IN (cast(cast(:categories as text) as bigint))) " +
-            "AND e.state = 'PUBLISHED' " +
-            "AND (:paid is null or e.paid = cast(cast(:paid as text) as boolean)) " +
-            "AND (e.event_date >= :rangeStart) " +
-            "AND (cast(:rangeEnd as timestamp) is null or e.event_date < cast(:rangeEnd as timestamp)) ",
+    // id событий по возрастанию, начиная после afterId — для обхода таблицы пачками
+    @Query("SELECT e.id FROM Event e WHERE e.state = :state AND e.id > :afterId ORDER BY e.id")
+    List<Long> findIdsByState(@Param("state") EventState state, @Param("afterId") Long afterId, Pageable limit);
+
+    // счетчик одобренных заявок меняется в той же транзакции, что и статус заявки
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests + :delta WHERE id = :eventId",
+            nativeQuery = true)
+    int addConfirmedRequests(@Param("eventId") Long eventId, @Param("delta") long delta);
+
+    // занимает одно место, если лимит еще не достигнут: проверка и инкремент в одном UPDATE,
+    // конкурирующие транзакции ждут только блокировку строки события. Возвращает 0, если мест нет
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests + 1 " +
+            "WHERE id = :eventId " +
+            "AND (COALESCE(participation_limit, 0) = 0 OR confirmed_requests < participation_limit)",
             nativeQuery = true)
-    Page<Event> searchPublishedEvents(@Param("text") String text,
-                                      @Param("categories") List<Long> categories,
-                                      @Param("paid") Boolean paid,
-                                      @Param("rangeStart") LocalDateTime start,
-                                      @Param("rangeEnd") LocalDateTime end,
-                                      Pageable pageable);
-
-    @Query(value = "SELECT * FROM events e " +
-            "WHERE (:userIds is null or e.initiator_id IN (cast(cast(:userIds as text) as bigint))) " +
-            "AND (:states is null or e.state IN (cast(:states as text))) " +
-            "AND (:categories is null or e.category_id IN (cast(cast(:categories as text) as bigint))) " +
-            "AND (cast(:rangeStart as timestamp) is null or e.event_date >= cast(:rangeStart as timestamp)) " +
-            "AND (cast(:rangeEnd as timestamp)  is null or e.event_date < cast(:rangeEnd as timestamp)) ",
+    int reserveConfirmedRequest(@Param("eventId") Long eventId);
+
+    // события, у которых счетчик расходится с таблицей заявок; без блокировок, только кандидаты на сверку
+    @Query(value = "SELECT e.id FROM events e WHERE e.confirmed_requests <> " +
+            "(SELECT COUNT(*) FROM requests r WHERE r.event_id = e.id AND r.status = 'CONFIRMED') ORDER BY e.id",
+            nativeQuery = true)
+    List<Long> findIdsWithStaleConfirmedRequests();
+
+    // та же блокировка строки, что берут reserveConfirmedRequest и addConfirmedRequests:
+    // пока она держится, заявки события не подтверждаются и не отменяются
+    @Query(value = "SELECT id FROM events WHERE id = :eventId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockForConfirmedRequests(@Param("eventId") Long eventId);
+
+    // пересчет счетчика одного события по таблице заявок. Выполнять после lockForConfirmedRequests
+    // в той же транзакции: отдельный запрос видит все заявки, зафиксированные до получения блокировки.
+    // Без нее UPDATE, дождавшись блокировки строки, записал бы число из снимка, взятого до чужого инкремента
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = " +
+            "(SELECT COUNT(*) FROM requests r WHERE r.event_id = :eventId AND r.status = 'CONFIRMED') " +
+            "WHERE id = :eventId AND confirmed_requests <> " +
+            "(SELECT COUNT(*) FROM requests r WHERE r.event_id = :eventId AND r.status = 'CONFIRMED')",
             nativeQuery = true)
-    Page<Event> findEvents(@Param("userIds") List<Long> userIds,
-                           @Param("states") List<String> states,
-                           @Param("categories") List<Long> categories,
-                           @Param("rangeStart") LocalDateTime rangeStart,
-                           @Param("rangeEnd") LocalDateTime rangeEnd,
-                           Pageable pageable);
-}
\ No newline at end of file
+    int reconcileConfirmedRequests(@Param("eventId") Long eventId);
+}
@@ -0,0 +1,28 @@
+package ru.practicum.ewm.repository;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.ewm.model.Event;
+import ru.practicum.ewm.model.EventSearchCriteria;
+import ru.practicum.ewm.model.EventShortView;
+import ru.practicum.ewm.model.KeysetCursor;
+
+import java.util.List;
+import java.util.Map;
+
+public interface EventRepositoryCustom {
+
+    // события по фильтру через OFFSET в порядке criteria.sort();
+    // fetchGraph — план загрузки связей (Event.GRAPH_SUMMARY или Event.GRAPH_FULL)
+    List<Event> searchEvents(EventSearchCriteria criteria, Pageable pageable, String fetchGraph);
+
+    // события по фильтру в порядке (event_date, id) строго после курсора; after == null — с начала
+    List<Event> searchEvents(EventSearchCriteria criteria, KeysetCursor after, int limit, String fetchGraph);
+
+    // то же для коротких списков: проекция EventShortView без загрузки сущностей
+    List<EventShortView> searchShortEvents(EventSearchCriteria criteria, Pageable pageable);
+
+    List<EventShortView> searchShortEvents(EventSearchCriteria criteria, KeysetCursor after, int limit);
+
+    // записывает снимок просмотров пачкой, строки с неизменным значением не трогает
+    void updateViews(Map<Long, Long> views);
+}
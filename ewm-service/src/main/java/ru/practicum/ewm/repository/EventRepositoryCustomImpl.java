@@ -0,0 +1,204 @@
+package ru.practicum.ewm.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.enums.SortValue;
+import ru.practicum.ewm.model.Event;
+import ru.practicum.ewm.model.EventSearchCriteria;
+import ru.practicum.ewm.model.EventShortView;
+import ru.practicum.ewm.model.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+    // websearch_to_tsquery понимает пользовательский ввод ("кавычки", OR, -минус) и не падает на спецсимволах
+    private static final String TS_QUERY = "websearch_to_tsquery('russian', :text)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final String UPDATE_VIEWS = "UPDATE events SET views = ? WHERE id = ? AND views <> ?";
+    private static final int BATCH_SIZE = 500;
+    private static final List<String> PUBLISHED_ONLY = List.of(EventState.PUBLISHED.name());
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
+    // только колонки, нужные EventShortDto: без description и без сущностей в persistence context
+    private static final String SELECT_SHORT = "SELECT e.id, e.annotation, e.category_id, c.name AS category_name, " +
+            "e.confirmed_requests, e.event_date, e.initiator_id, u.name AS initiator_name, e.paid, e.title " +
+            "FROM events e " +
+            "LEFT JOIN categories c ON c.id = e.category_id " +
+            "LEFT JOIN users u ON u.id = e.initiator_id";
+    private static final RowMapper<EventShortView> SHORT_VIEW_MAPPER = (rs, rowNum) -> new EventShortView(
+            rs.getLong("id"),
+            rs.getString("annotation"),
+            rs.getObject("category_id", Long.class),
+            rs.getString("category_name"),
+            rs.getLong("confirmed_requests"),
+            rs.getObject("event_date", LocalDateTime.class),
+            rs.getObject("initiator_id", Long.class),
+            rs.getString("initiator_name"),
+            rs.getObject("paid", Boolean.class),
+            rs.getString("title"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final boolean fullText;
+
+    public EventRepositoryCustomImpl(JdbcTemplate jdbcTemplate,
+                                     @Value("${ewm.search.full-text:true}") boolean fullText) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.fullText = fullText;
+    }
+
+    @Override
+    public List<Event> searchEvents(EventSearchCriteria criteria, Pageable pageable, String fetchGraph) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder sql = new StringBuilder("SELECT e.id FROM events e").append(where(criteria, params));
+        sql.append(orderBy(criteria));
+        return list(sql, params, (int) pageable.getOffset(), pageable.getPageSize(), fetchGraph);
+    }
+
+    @Override
+    public List<Event> searchEvents(EventSearchCriteria criteria, KeysetCursor after, int limit, String fetchGraph) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder sql = new StringBuilder("SELECT e.id FROM events e").append(where(criteria, params));
+        sql.append(keyset(after, params));
+        return list(sql, params, 0, limit, fetchGraph);
+    }
+
+    @Override
+    public List<EventShortView> searchShortEvents(EventSearchCriteria criteria, Pageable pageable) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder sql = new StringBuilder(SELECT_SHORT).append(where(criteria, params));
+        sql.append(orderBy(criteria)).append(" LIMIT :limit OFFSET :offset");
+        params.put("limit", pageable.getPageSize());
+        params.put("offset", pageable.getOffset());
+        return namedJdbcTemplate.query(sql.toString(), params, SHORT_VIEW_MAPPER);
+    }
+
+    @Override
+    public List<EventShortView> searchShortEvents(EventSearchCriteria criteria, KeysetCursor after, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder sql = new StringBuilder(SELECT_SHORT).append(where(criteria, params));
+        sql.append(keyset(after, params)).append(" LIMIT :limit");
+        params.put("limit", limit);
+        return namedJdbcTemplate.query(sql.toString(), params, SHORT_VIEW_MAPPER);
+    }
+
+    @Override
+    public void updateViews(Map<Long, Long> views) {
+        List<Map.Entry<Long, Long>> rows = List.copyOf(views.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_VIEWS, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.getValue());
+            ps.setLong(2, row.getKey());
+            ps.setLong(3, row.getValue());
+        });
+    }
+
+    private String orderBy(EventSearchCriteria criteria) {
+        if (criteria.sort() == SortValue.VIEWS) {
+            return " ORDER BY e.views DESC, e.id";
+        } else if (criteria.sort() == SortValue.EVENT_DATE) {
+            return " ORDER BY e.event_date, e.id";
+        } else if (criteria.hasText() && fullText) {
+            return " ORDER BY ts_rank(e.search_vector, " + TS_QUERY + ") DESC, e.id";
+        }
+        return " ORDER BY e.id";
+    }
+
+    private String keyset(KeysetCursor after, Map<String, Object> params) {
+        if (after == null) {
+            return " ORDER BY e.event_date, e.id";
+        }
+        // сравнение строк целиком читается индексом (event_date, id) с нужного места, без OFFSET
+        params.put("afterKey", after.key());
+        params.put("afterId", after.id());
+        return " AND (e.event_date, e.id) > (:afterKey, :afterId) ORDER BY e.event_date, e.id";
+    }
+
+    private StringBuilder where(EventSearchCriteria criteria, Map<String, Object> params) {
+        StringBuilder sql = new StringBuilder(" WHERE 1 = 1");
+
+        if (criteria.hasText()) {
+            params.put("text", criteria.text());
+            if (fullText) {
+                // search_vector — генерируемая колонка с GIN-индексом (schema-postgresql.sql)
+                sql.append(" AND e.search_vector @@ ").append(TS_QUERY);
+            } else {
+                // для H2 в тестовом профиле: полный просмотр таблицы
+                sql.append(" AND (lower(e.annotation) LIKE lower(concat('%', :text, '%'))")
+                        .append(" OR lower(e.description) LIKE lower(concat('%', :text, '%')))");
+            }
+        }
+        if (criteria.users() != null && !criteria.users().isEmpty()) {
+            sql.append(" AND e.initiator_id IN (:users)");
+            params.put("users", criteria.users());
+        }
+        if (PUBLISHED_ONLY.equals(criteria.states())) {
+            // литерал, а не параметр: иначе планировщик не применит частичный индекс idx_events_published_event_date
+            sql.append(" AND e.state = 'PUBLISHED'");
+        } else if (criteria.states() != null && !criteria.states().isEmpty()) {
+            sql.append(" AND e.state IN (:states)");
+            params.put("states", criteria.states());
+        }
+        if (criteria.categories() != null && !criteria.categories().isEmpty()) {
+            sql.append(" AND e.category_id IN (:categories)");
+            params.put("categories", criteria.categories());
+        }
+        if (criteria.paid() != null) {
+            sql.append(" AND e.paid = :paid");
+            params.put("paid", criteria.paid());
+        }
+        if (criteria.onlyAvailable()) {
+            // то же выражение, что в предикате частичного индекса idx_events_published_available (schema-postgresql.sql)
+            sql.append(" AND (COALESCE(e.participation_limit, 0) = 0 OR e.confirmed_requests < e.participation_limit)");
+        }
+        if (criteria.rangeStart() != null) {
+            sql.append(" AND e.event_date >= :rangeStart");
+            params.put("rangeStart", criteria.rangeStart());
+        }
+        if (criteria.rangeEnd() != null) {
+            sql.append(" AND e.event_date < :rangeEnd");
+            params.put("rangeEnd", criteria.rangeEnd());
+        }
+        return sql;
+    }
+
+    // сначала нативным запросом выбираем id страницы в нужном порядке, затем одним JPQL-запросом
+    // загружаем сами события вместе со связями по плану fetchGraph — без N+1 на category/initiator
+    @SuppressWarnings("unchecked")
+    private List<Event> list(StringBuilder sql, Map<String, Object> params, int offset, int limit, String fetchGraph) {
+        Query query = entityManager.createNativeQuery(sql.toString(), Long.class);
+        params.forEach(query::setParameter);
+        List<Long> ids = query
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Event> events = entityManager
+                .createQuery("SELECT e FROM Event e WHERE e.id IN :ids", Event.class)
+                .setParameter("ids", ids)
+                .setHint(FETCH_GRAPH_HINT, entityManager.getEntityGraph(fetchGraph))
+                .getResultStream()
+                .collect(Collectors.toMap(Event::getId, Function.identity()));
+        return ids.stream()
+                .map(events::get)
+                .toList();
+    }
+}
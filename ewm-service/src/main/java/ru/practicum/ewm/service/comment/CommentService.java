@@ -3,6 +3,7 @@ package ru.practicum.ewm.service.comment;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.ewm.dto.comment.CommentDto;
 import ru.practicum.ewm.dto.comment.NewCommentDto;
+import ru.practicum.ewm.dto.page.CursorPage;
 
 import java.util.List;
 
@@ -20,7 +21,7 @@ public interface CommentService {
 
     // public:
     // получение всех комментариев к событию
-    List<CommentDto> getAllCommentsToEvent(Long eventId, Pageable pageable);
+    CursorPage<CommentDto> getAllCommentsToEvent(Long eventId, Pageable pageable, String cursor);
 
     // admin:
     // удаление комментария админом
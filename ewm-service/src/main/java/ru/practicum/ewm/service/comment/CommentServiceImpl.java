@@ -2,15 +2,18 @@ package ru.practicum.ewm.service.comment;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.dto.comment.CommentDto;
 import ru.practicum.ewm.dto.comment.NewCommentDto;
+import ru.practicum.ewm.dto.page.CursorPage;
 import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.exception.ValidationException;
 import ru.practicum.ewm.mapper.CommentMapper;
 import ru.practicum.ewm.model.Comment;
+import ru.practicum.ewm.model.KeysetCursor;
 import ru.practicum.ewm.repository.CommentRepository;
 import ru.practicum.ewm.repository.EventRepository;
 import ru.practicum.ewm.repository.UserRepository;
@@ -78,19 +81,32 @@ public class CommentServiceImpl implements CommentService {
 
     // получение всех комментариев к событию
     @Override
-    public List<CommentDto> getAllCommentsToEvent(Long eventId, Pageable pageable) {
+    public CursorPage<CommentDto> getAllCommentsToEvent(Long eventId, Pageable pageable, String cursor) {
         if (!eventRepository.existsById(eventId)) {
             throw new NotFoundException("Событие не существует: " + eventId);
         }
 
-        List<Comment> commentList = commentRepository.findAllByEvent_IdOrderByCreatedDesc(eventId, pageable);
-        List<CommentDto> commentDtoList = new ArrayList<>();
-
-        for (Comment comment : commentList) {
-            commentDtoList.add(commentMapper.toCommentDto(comment));
+        CursorPage<Comment> comments;
+        if (cursor == null) {
+            comments = new CursorPage<>(commentRepository.findAllByEvent_IdOrderByCreatedDesc(eventId, pageable), null);
+        } else {
+            // берем на одну строку больше, чтобы узнать, есть ли следующая страница
+            int size = pageable.getPageSize();
+            PageRequest limit = PageRequest.of(0, size + 1);
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            List<Comment> rows = after == null
+                    ? commentRepository.findAllByEvent_IdOrderByCreatedDescIdDesc(eventId, limit)
+                    : commentRepository.findPageAfter(eventId, after.key(), after.id(), limit);
+            comments = CursorPage.of(rows, size, comment -> new KeysetCursor(comment.getCreated(), comment.getId()));
         }
 
-        return commentDtoList;
+        return comments.map(commentList -> {
+            List<CommentDto> commentDtoList = new ArrayList<>();
+            for (Comment comment : commentList) {
+                commentDtoList.add(commentMapper.toCommentDto(comment));
+            }
+            return commentDtoList;
+        });
     }
 
     // удаление комментария админом
@@ -1,30 +1,21 @@
 package ru.practicum.ewm.service.compilation;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewm.dto.compilation.CompilationDto;
 import ru.practicum.ewm.dto.compilation.NewCompilationDto;
 import ru.practicum.ewm.dto.compilation.UpdateCompilationRequest;
-import ru.practicum.ewm.dto.event.EventShortDto;
-import ru.practicum.ewm.enums.RequestStatus;
 import ru.practicum.ewm.exception.NotFoundException;
 import ru.practicum.ewm.mapper.CompilationMapper;
-import ru.practicum.ewm.mapper.EventMapper;
 import ru.practicum.ewm.model.Compilation;
 import ru.practicum.ewm.model.Event;
 import ru.practicum.ewm.repository.CompilationRepository;
 import ru.practicum.ewm.repository.EventRepository;
-import ru.practicum.ewm.repository.RequestRepository;
-import ru.practicum.statsclient.StatsClient;
-import ru.practicum.statsdto.ViewStats;
-import ru.practicum.statsdto.ViewStatsRequest;
+import ru.practicum.ewm.service.event.EventStatsEnricher;
 
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,9 +23,7 @@ public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final CompilationMapper compilationMapper;
     private final EventRepository eventRepository;
-    private final RequestRepository requestRepository;
-    private final StatsClient statsClient;
-    private final EventMapper eventMapper;
+    private final EventStatsEnricher eventStatsEnricher;
 
     // public
     // получение подборок событий
@@ -46,74 +35,32 @@ public class CompilationServiceImpl implements CompilationService {
 
         Pageable pageable = PageRequest.of(safeFrom / safeSize, safeSize);
 
-        Page<Compilation> compilationPage =
+        List<Compilation> compilationList =
                 (pinned != null)
                         ? compilationRepository.findAllByPinnedOrderByIdDesc(pinned, pageable)
-                        : compilationRepository.findAll(pageable);
-
-        List<Compilation> compilationList = compilationPage.getContent();
+                        : compilationRepository.findAllByOrderByIdDesc(pageable);
 
         if (compilationList.isEmpty()) return List.of();
 
-        // Собираем все eventIds
-        List<Long> eventIds = compilationList.stream()
-                .flatMap(c -> c.getEvents().stream())
-                .map(Event::getId)
-                .distinct()
+        // переводим в ДТО и проставляем confirmedRequests и views всем событиям подборок разом.
+        // Просмотры считаются за то же окно, что и везде (EventViewsCache, 100 лет), а не за последний год,
+        // как раньше считал этот список: событие в списке подборок и в подборке по id показывает одно число
+        List<CompilationDto> compilationDtoList = compilationList.stream()
+                .map(compilationMapper::toCompilationDto)
                 .toList();
 
-        if (eventIds.isEmpty()) {
-            return compilationList.stream()
-                    .map(compilationMapper::toCompilationDto)
-                    .toList();
-        }
-
-        // Счётчики подтверждённых запросов
-        Map<Long, Long> confirmedCounts = requestRepository.countConfirmedByEventIds(eventIds);
-
-        // Счётчики просмотров
-        List<String> uris = eventIds.stream().map(id -> "/events/" + id).toList();
-
-        List<ViewStats> viewStatsList;
-        try {
-            viewStatsList = statsClient.getStats(new ViewStatsRequest(
-                    LocalDateTime.now().minusYears(1),
-                    LocalDateTime.now(),
-                    uris,
-                    true
-            ));
-        } catch (Exception e) {
-            viewStatsList = List.of();
-        }
+        eventStatsEnricher.enrichShort(compilationDtoList.stream()
+                .flatMap(compilation -> compilation.getEvents().stream())
+                .toList());
 
-        Map<Long, Long> viewsMap = viewStatsList.stream()
-                .collect(Collectors.toMap(
-                        v -> Long.parseLong(v.getUri().split("/")[2]),
-                        ViewStats::getHits
-                ));
-
-        // Собираем DTO
-        return compilationList.stream()
-                .map(compilation -> {
-                    CompilationDto dto = compilationMapper.toCompilationDto(compilation);
-                    List<EventShortDto> updatedEvents = compilation.getEvents().stream()
-                            .map(eventMapper::toEventShortDto)
-                            .peek(e -> {
-                                e.setConfirmedRequests(confirmedCounts.getOrDefault(e.getId(), 0L));
-                                e.setViews(viewsMap.getOrDefault(e.getId(), 0L));
-                            })
-                            .toList();
-                    dto.setEvents(updatedEvents);
-                    return dto;
-                })
-                .toList();
+        return compilationDtoList;
     }
 
 
     // получение подборки событие по его id
     @Override
     public CompilationDto getCompilation(Long compilationId) {
-        Compilation compilation = compilationRepository.findById(compilationId)
+        Compilation compilation = compilationRepository.findWithEventsById(compilationId)
                 .orElseThrow(() -> new NotFoundException("Подборки не существует с Id: " + compilationId));
 
         // переводим в ДТО и сохраняем ConfirmedRequestsAndViews
@@ -191,28 +138,7 @@ public class CompilationServiceImpl implements CompilationService {
     }
 
     private CompilationDto addConfirmedRequestsAndViews(CompilationDto compilationDto) {
-        for (EventShortDto eventDto : compilationDto.getEvents()) {
-            // Добавить сonfirmedRequests к каждому событию
-            eventDto.setConfirmedRequests(
-                    requestRepository.countByEventIdAndStatus(eventDto.getId(), RequestStatus.CONFIRMED));
-
-            // Добавить views к каждому событию
-            List<String> uris = new ArrayList<>();
-
-            // создаем uri для обращения к базе данных статистики
-            uris.add("/events/" + eventDto.getId());
-            ViewStatsRequest viewStatsRequest = new ViewStatsRequest(
-                    LocalDateTime.now().minusYears(100),
-                    LocalDateTime.now(),
-                    uris,
-                    true);
-            List<ViewStats> viewStatsList = statsClient.getStats(viewStatsRequest);
-            if (viewStatsList.isEmpty()) {
-                eventDto.setViews(0L);
-            } else {
-                eventDto.setViews(viewStatsList.getFirst().getHits());
-            }
-        }
+        eventStatsEnricher.enrichShort(compilationDto.getEvents());
         return compilationDto;
     }
 }
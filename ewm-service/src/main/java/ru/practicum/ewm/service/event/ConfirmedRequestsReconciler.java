@@ -0,0 +1,45 @@
+package ru.practicum.ewm.service.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.repository.EventRepository;
+
+import java.util.List;
+
+// Периодически сверяет счетчик events.confirmed_requests с таблицей заявок.
+// Счетчик обновляется в транзакции вместе со статусом заявки, сверка нужна
+// только на случай ручных правок в БД. Каждое событие сверяется в своей транзакции
+// под блокировкой его строки, поэтому сверка не затирает инкремент параллельного подтверждения
+@Slf4j
+@Component
+public class ConfirmedRequestsReconciler {
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transaction;
+
+    public ConfirmedRequestsReconciler(EventRepository eventRepository, PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${ewm.confirmed-requests.reconcile-interval-ms:600000}",
+            fixedDelayString = "${ewm.confirmed-requests.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        List<Long> candidates = eventRepository.findIdsWithStaleConfirmedRequests();
+        int fixed = 0;
+        for (Long eventId : candidates) {
+            Integer updated = transaction.execute(status -> {
+                eventRepository.lockForConfirmedRequests(eventId);
+                return eventRepository.reconcileConfirmedRequests(eventId);
+            });
+            if (updated != null && updated > 0) {
+                fixed++;
+            }
+        }
+        if (fixed > 0) {
+            log.warn("Счетчик одобренных заявок расходился с таблицей заявок у {} событий", fixed);
+        }
+    }
+}
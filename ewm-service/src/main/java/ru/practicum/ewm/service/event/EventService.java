@@ -2,6 +2,7 @@ package ru.practicum.ewm.service.event;
 
 import org.springframework.data.domain.Pageable;
 import ru.practicum.ewm.dto.event.*;
+import ru.practicum.ewm.dto.page.CursorPage;
 import ru.practicum.ewm.dto.request.EventRequestStatusUpdateRequest;
 import ru.practicum.ewm.dto.request.EventRequestStatusUpdateResult;
 import ru.practicum.ewm.dto.request.ParticipationRequestDto;
@@ -11,7 +12,7 @@ import java.util.List;
 public interface EventService {
     // private
     // получение событий текущего пользователя
-    List<EventShortDto> getEventsByInitiator(Long userId, Pageable pageable);
+    CursorPage<EventShortDto> getEventsByInitiator(Long userId, Pageable pageable, String cursor);
 
     // добавление нового события
     EventFullDto addEvent(Long userId, NewEventDto newEventDto);
@@ -26,7 +27,7 @@ public interface EventService {
 
     // admin
     // поиск событий
-    List<EventFullDto> getEventsByAdmin(AdminEventFilter filter);
+    CursorPage<EventFullDto> getEventsByAdmin(AdminEventFilter filter);
 
     // редактирование данных события и его статуса
     EventFullDto updateEventByAdmin(Long eventId,
@@ -34,7 +35,7 @@ public interface EventService {
 
     // public
     // получение событий с возможностью фильтрации
-    List<EventShortDto> getEventList(PublicEventFilter filter);
+    CursorPage<EventShortDto> getEventList(PublicEventFilter filter);
 
     // получение подробной инфо о событии по его id
     EventFullDto getEvent(Long eventId, String userIp, String requestUri);
@@ -5,7 +5,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.dto.event.*;
+import ru.practicum.ewm.dto.page.CursorPage;
 import ru.practicum.ewm.dto.request.EventRequestStatusUpdateRequest;
 import ru.practicum.ewm.dto.request.EventRequestStatusUpdateResult;
 import ru.practicum.ewm.dto.request.ParticipationRequestDto;
@@ -18,8 +20,6 @@ import ru.practicum.ewm.mapper.RequestMapper;
 import ru.practicum.ewm.model.*;
 import ru.practicum.ewm.repository.*;
 import ru.practicum.statsclient.StatsClient;
-import ru.practicum.statsdto.ViewStats;
-import ru.practicum.statsdto.ViewStatsRequest;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -41,58 +41,21 @@ public class EventServiceImpl implements EventService {
     private final RequestRepository requestRepository;
     private final StatsClient statsClient;
     private final RequestMapper requestMapper;
+    private final EventStatsEnricher eventStatsEnricher;
 
     // private
     // получение событий текущего пользователя
     @Override
-    public List<EventShortDto> getEventsByInitiator(Long userId, Pageable pageable) {
+    public CursorPage<EventShortDto> getEventsByInitiator(Long userId, Pageable pageable, String cursor) {
 
-        // 1. Получаем все события инициатора
-        List<Event> eventList = eventRepository.findAllByInitiatorId(userId, pageable).toList();
+        // 1. Получаем страницу событий инициатора
+        EventSearchCriteria criteria = new EventSearchCriteria(null, List.of(userId), null, null, null, false, null, null, null);
+        CursorPage<EventShortView> events = findShortEvents(criteria, pageable, cursor);
 
-        if (eventList.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // 2. Преобразуем события в DTO
-        List<EventShortDto> eventShortDtoList = eventList.stream()
+        // 2. Преобразуем события в DTO и проставляем views одним запросом
+        return events.map(eventList -> eventStatsEnricher.enrichShort(eventList.stream()
                 .map(eventMapper::toEventShortDto)
-                .toList();
-
-        List<Long> eventIds = eventShortDtoList.stream()
-                .map(EventShortDto::getId)
-                .toList();
-
-        // 3. Получаем confirmedRequests одним запросом
-        Map<Long, Long> confirmedCounts = requestRepository.countConfirmedByEventIds(eventIds);
-
-        // 4. Получаем просмотры одним запросом к statsClient
-        List<String> uris = eventIds.stream()
-                .map(id -> "/events/" + id)
-                .toList();
-
-        ViewStatsRequest viewStatsRequest = new ViewStatsRequest(
-                LocalDateTime.now().minusYears(100),
-                LocalDateTime.now(),
-                uris,
-                true
-        );
-
-        List<ViewStats> viewStatsList = statsClient.getStats(viewStatsRequest);
-
-        Map<Long, Long> viewsMap = viewStatsList.stream()
-                .collect(Collectors.toMap(
-                        v -> Long.parseLong(v.getUri().split("/")[2]),
-                        ViewStats::getHits
-                ));
-
-        // 5. Применяем confirmedRequests и views к DTO
-        eventShortDtoList.forEach(e -> {
-            e.setConfirmedRequests(confirmedCounts.getOrDefault(e.getId(), 0L));
-            e.setViews(viewsMap.getOrDefault(e.getId(), 0L));
-        });
-
-        return eventShortDtoList;
+                .toList()));
     }
 
 
@@ -117,7 +80,7 @@ public class EventServiceImpl implements EventService {
         eventToSave.setInitiator(user);
         eventRepository.save(eventToSave);
 
-        return addConfirmedRequestsAndViews(eventMapper.toEventFullDto(eventToSave));
+        return eventStatsEnricher.enrichFull(eventMapper.toEventFullDto(eventToSave));
     }
 
     // полная инфо о событии добавленное текущим пользователем
@@ -125,7 +88,7 @@ public class EventServiceImpl implements EventService {
     public EventFullDto getEventByInitiator(Long userId, Long eventId) {
         Event event = eventRepository.findByIdAndInitiatorId(eventId, userId)
                 .orElseThrow(() -> new NotFoundException("Событие не существует"));
-        return addConfirmedRequestsAndViews(eventMapper.toEventFullDto(event));
+        return eventStatsEnricher.enrichFull(eventMapper.toEventFullDto(event));
     }
 
     // изменения события добавленного текущим пользователем
@@ -151,24 +114,23 @@ public class EventServiceImpl implements EventService {
 
         updateEventEntity(updateEventUserRequest, eventToUpdate);
         eventRepository.save(eventToUpdate);
-        return addConfirmedRequestsAndViews(eventMapper.toEventFullDto(eventToUpdate));
+        return eventStatsEnricher.enrichFull(eventMapper.toEventFullDto(eventToUpdate));
     }
 
     // admin
     // поиск событий
     @Override
-    public List<EventFullDto> getEventsByAdmin(AdminEventFilter filter) {
+    public CursorPage<EventFullDto> getEventsByAdmin(AdminEventFilter filter) {
 
+        PageRequest pageRequest = PageRequest.of(filter.getFrom() / filter.getSize(), filter.getSize());
+        CursorPage<Event> events = findEvents(handleFilters(filter), pageRequest, filter.getCursor(), Event.GRAPH_FULL);
 
-        List<Event> events = handleFilters(filter, filter.getFrom(), filter.getSize());
-
-        return events.stream()
+        return events.map(eventList -> eventStatsEnricher.enrichFull(eventList.stream()
                 .map(eventMapper::toEventFullDto)
-                .map(this::addConfirmedRequestsAndViews)
-                .toList();
+                .toList()));
     }
 
-    private List<Event> handleFilters(AdminEventFilter filter, int from, int size) {
+    private EventSearchCriteria handleFilters(AdminEventFilter filter) {
 
         boolean noFilters =
                 filter.getStates() == null &&
@@ -177,10 +139,8 @@ public class EventServiceImpl implements EventService {
                         filter.getUsers() == null &&
                         filter.getCategories() == null;
 
-        PageRequest pageRequest = PageRequest.of(from / size, size);
-
         if (noFilters) {
-            return eventRepository.findAll(pageRequest).toList();
+            return new EventSearchCriteria(null, null, null, null, null, false, null, null, null);
         }
 
         LocalDateTime start;
@@ -203,19 +163,44 @@ public class EventServiceImpl implements EventService {
 
         }
 
-
-        List<Long> users = filter.getUsers() != null ? filter.getUsers() : Collections.emptyList();
-        List<String> states = filter.getStates() != null ? filter.getStates() : Collections.emptyList();
-        List<Long> categories = filter.getCategories() != null ? filter.getCategories() : Collections.emptyList();
-
-        return eventRepository.findEvents(
-                users,
-                states,
-                categories,
+        return new EventSearchCriteria(null,
+                filter.getUsers(),
+                filter.getStates(),
+                filter.getCategories(),
+                null,
+                false,
                 start,
                 end,
-                pageRequest
-        ).toList();
+                null);
+    }
+
+    // cursor == null — обычная выдача по from/size, иначе keyset по (event_date, id) без OFFSET;
+    // в обоих случаях без COUNT-запроса
+    private CursorPage<Event> findEvents(EventSearchCriteria criteria, Pageable pageable, String cursor,
+                                         String fetchGraph) {
+        if (cursor == null) {
+            return new CursorPage<>(eventRepository.searchEvents(criteria, pageable, fetchGraph), null);
+        }
+        int size = pageable.getPageSize();
+        List<Event> rows = eventRepository.searchEvents(criteria, keysetCursor(criteria, cursor), size + 1, fetchGraph);
+        return CursorPage.of(rows, size, event -> new KeysetCursor(event.getEventDate(), event.getId()));
+    }
+
+    // то же для коротких списков — через проекцию, без загрузки сущностей
+    private CursorPage<EventShortView> findShortEvents(EventSearchCriteria criteria, Pageable pageable, String cursor) {
+        if (cursor == null) {
+            return new CursorPage<>(eventRepository.searchShortEvents(criteria, pageable), null);
+        }
+        int size = pageable.getPageSize();
+        List<EventShortView> rows = eventRepository.searchShortEvents(criteria, keysetCursor(criteria, cursor), size + 1);
+        return CursorPage.of(rows, size, event -> new KeysetCursor(event.eventDate(), event.id()));
+    }
+
+    private KeysetCursor keysetCursor(EventSearchCriteria criteria, String cursor) {
+        if (criteria.sort() == SortValue.VIEWS) {
+            throw new ValidationException("Курсор не поддерживается для сортировки по просмотрам");
+        }
+        return KeysetCursor.decode(cursor);
     }
 
 
@@ -251,13 +236,13 @@ public class EventServiceImpl implements EventService {
         updateEventEntity(updateEventAdminRequest, eventToUpdate);
 
         eventRepository.save(eventToUpdate);
-        return addConfirmedRequestsAndViews(eventMapper.toEventFullDto(eventToUpdate));
+        return eventStatsEnricher.enrichFull(eventMapper.toEventFullDto(eventToUpdate));
     }
 
     // public
     // получение событий с возможностью фильтрации
     @Override
-    public List<EventShortDto> getEventList(PublicEventFilter filter) {
+    public CursorPage<EventShortDto> getEventList(PublicEventFilter filter) {
 
         statsClient.hit(filter.getUserIp(), filter.getRequestUri());
 
@@ -290,34 +275,33 @@ public class EventServiceImpl implements EventService {
 
         PageRequest pageRequest = PageRequest.of(filter.getFrom() / filter.getSize(), filter.getSize());
 
-        List<Event> eventList = eventRepository
-                .searchPublishedEvents(
-                        filter.getText(),
-                        filter.getCategories(),
-                        filter.getPaid(),
-                        start,
-                        end,
-                        pageRequest)
-                .getContent();
-
-        if (eventList.isEmpty()) {
-            return Collections.emptyList();
-        }
+        EventSearchCriteria criteria = new EventSearchCriteria(
+                filter.getText(),
+                null,
+                List.of(EventState.PUBLISHED.name()),
+                filter.getCategories(),
+                filter.getPaid(),
+                Boolean.TRUE.equals(filter.getOnlyAvailable()),
+                start,
+                end,
+                parseSort(filter.getSort()));
+        CursorPage<EventShortView> events = findShortEvents(criteria, pageRequest, filter.getCursor());
 
-        List<EventShortDto> result = eventList.stream()
+        // порядок уже задан запросом, в том числе по просмотрам (колонка events.views)
+        return events.map(eventList -> eventStatsEnricher.enrichShort(eventList.stream()
                 .map(eventMapper::toEventShortDto)
-                .map(this::addShortConfirmedRequestsAndViews)
-                .collect(Collectors.toList());
-
-        if (filter.getSort() != null) {
-            switch (SortValue.valueOf(filter.getSort())) {
-                case EVENT_DATE -> result.sort(Comparator.comparing(EventShortDto::getEventDate));
-                case VIEWS -> result.sort(Comparator.comparing(EventShortDto::getViews));
-                default -> throw new ValidationException("Параметр sort недопустим");
-            }
-        }
+                .toList()));
+    }
 
-        return result;
+    private SortValue parseSort(String sort) {
+        if (sort == null) {
+            return null;
+        }
+        try {
+            return SortValue.valueOf(sort);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Параметр sort недопустим");
+        }
     }
 
 
@@ -329,7 +313,7 @@ public class EventServiceImpl implements EventService {
 
         statsClient.hit(userIp, requestUri);
 
-        return addConfirmedRequestsAndViews(eventMapper.toEventFullDto(event));
+        return eventStatsEnricher.enrichFull(eventMapper.toEventFullDto(event));
     }
 
     private void updateEventEntity(UpdateEventUserRequest event, Event eventToUpdate) {
@@ -366,62 +350,6 @@ public class EventServiceImpl implements EventService {
         eventToUpdate.setTitle(Objects.requireNonNullElse(event.getTitle(), eventToUpdate.getTitle()));
     }
 
-    private EventFullDto addConfirmedRequestsAndViews(EventFullDto eventFullDto) {
-
-        // 1. Подтверждённые запросы
-        eventFullDto.setConfirmedRequests(
-                requestRepository.countByEventIdAndStatus(eventFullDto.getId(), RequestStatus.CONFIRMED));
-
-        // 2. Просмотры — с даты публикации события
-        LocalDateTime start = eventFullDto.getPublishedOn() != null
-                ? eventFullDto.getPublishedOn()
-                : LocalDateTime.now().minusYears(100); // fallback, если дата публикации отсутствует
-
-        List<String> uris = List.of("/events/" + eventFullDto.getId());
-
-        ViewStatsRequest viewStatsRequest = new ViewStatsRequest(
-                start,
-                LocalDateTime.now(),
-                uris,
-                true
-        );
-
-        List<ViewStats> viewStatsList = statsClient.getStats(viewStatsRequest);
-
-        eventFullDto.setViews(viewStatsList.isEmpty()
-                ? 0L
-                : viewStatsList.getFirst().getHits());
-
-        return eventFullDto;
-    }
-
-
-    private EventShortDto addShortConfirmedRequestsAndViews(EventShortDto eventShortDto) {
-        // Добавить сonfirmedRequests к каждому событию
-        eventShortDto.setConfirmedRequests(
-                requestRepository.countByEventIdAndStatus(eventShortDto.getId(), RequestStatus.CONFIRMED));
-
-        // Добавить views к каждому событию
-        List<String> uris = new ArrayList<>();
-
-        // создаем uri для обращения к базе данных статистики
-        uris.add("/events/" + eventShortDto.getId());
-        ViewStatsRequest viewStatsRequest = new ViewStatsRequest(
-                LocalDateTime.now().minusYears(100),
-                LocalDateTime.now(),
-                uris,
-                true);
-        List<ViewStats> viewStatsList = statsClient.getStats(viewStatsRequest);
-        if (viewStatsList.isEmpty()) {
-            log.info("addShortConfirmedRequestsAndViews: просмотров нет у этого эндпоинта " +
-                    viewStatsRequest.getUris());
-            eventShortDto.setViews(0L);
-        } else {
-            eventShortDto.setViews(viewStatsList.getFirst().getHits());
-        }
-        return eventShortDto;
-    }
-
     // private
     // Получение инфо о запросах на участие в событии текущего пользователя
     @Override
@@ -451,6 +379,7 @@ public class EventServiceImpl implements EventService {
 
     // Изменение статуса (подтверждена, отменена) заявок на участие в событии текущего пользователя
     @Override
+    @Transactional
     public EventRequestStatusUpdateResult updateRequest(Long userId, Long eventId,
                                                         EventRequestStatusUpdateRequest eventRequest) {
         if (!userRepository.existsById(userId)) {
@@ -463,7 +392,7 @@ public class EventServiceImpl implements EventService {
             throw new ValidationException("Модерация не требуется " + eventId);
         }
 
-        Long confirmedRequest = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
+        Long confirmedRequest = event.getConfirmedRequests();
 
         if (confirmedRequest >= event.getParticipantLimit()) {
             throw new AlreadyExistsException("Превышение лимита участия " + eventId);
@@ -490,15 +419,17 @@ public class EventServiceImpl implements EventService {
                 if (currentRequest.getStatus().equals(RequestStatus.CONFIRMED)) {
                     throw new AlreadyExistsException("Запрос уже был подтвержден");
                 }
-                if (confirmedRequest >= event.getParticipantLimit()) {
+                // место занимаем атомарно: параллельные подтверждения и авто-подтверждения
+                // из addRequest не могут превысить лимит
+                if (eventRepository.reserveConfirmedRequest(eventId) == 0) {
                     // всем отказываем когда превышен лимит
                     currentRequest.setStatus(RequestStatus.REJECTED);
                     updatedRequests.add(currentRequest);
                     rejectedRequests.add(currentRequest);
+                    continue;
                 }
                 currentRequest.setStatus(RequestStatus.CONFIRMED);
                 updatedRequests.add(currentRequest);
-                confirmedRequest++;
                 confirmedRequests.add(currentRequest);
             }
             if (status == RequestStatusUpdate.REJECTED && currentRequest.getStatus().equals(RequestStatus.PENDING)) {
@@ -0,0 +1,89 @@
+package ru.practicum.ewm.service.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.dto.event.EventFullDto;
+import ru.practicum.ewm.dto.event.EventShortDto;
+
+import java.util.*;
+import java.util.function.Function;
+
+// Проставляет views сразу всей странице событий: не больше одного запроса
+// к сервису статистики (просмотры берутся из EventViewsCache).
+// confirmedRequests приходит из счетчика events.confirmed_requests через маппер.
+@Component
+@RequiredArgsConstructor
+public class EventStatsEnricher {
+    private static final String EVENT_URI_PREFIX = "/events/";
+
+    private final EventViewsCache eventViewsCache;
+
+    public List<EventShortDto> enrichShort(List<EventShortDto> events) {
+        if (events == null || events.isEmpty()) {
+            return events;
+        }
+        List<Long> eventIds = ids(events, EventShortDto::getId);
+        Map<Long, Long> views = getViews(eventIds);
+
+        events.forEach(e -> e.setViews(views.getOrDefault(e.getId(), 0L)));
+        return events;
+    }
+
+    public List<EventFullDto> enrichFull(List<EventFullDto> events) {
+        if (events == null || events.isEmpty()) {
+            return events;
+        }
+        List<Long> eventIds = ids(events, EventFullDto::getId);
+        Map<Long, Long> views = getViews(eventIds);
+
+        events.forEach(e -> e.setViews(views.getOrDefault(e.getId(), 0L)));
+        return events;
+    }
+
+    public EventFullDto enrichFull(EventFullDto event) {
+        enrichFull(List.of(event));
+        return event;
+    }
+
+    public static String toEventUri(Long eventId) {
+        return EVENT_URI_PREFIX + eventId;
+    }
+
+    // "/events/42" -> 42; для остальных uri — null
+    public static Long parseEventId(String uri) {
+        if (uri == null || !uri.startsWith(EVENT_URI_PREFIX) || uri.length() == EVENT_URI_PREFIX.length()) {
+            return null;
+        }
+        long id = 0;
+        for (int i = EVENT_URI_PREFIX.length(); i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private Map<Long, Long> getViews(List<Long> eventIds) {
+        List<String> uris = eventIds.stream()
+                .map(EventStatsEnricher::toEventUri)
+                .toList();
+
+        Map<Long, Long> views = new HashMap<>();
+        eventViewsCache.getViews(uris).forEach((uri, hits) -> {
+            Long eventId = parseEventId(uri);
+            if (eventId != null) {
+                views.put(eventId, hits);
+            }
+        });
+        return views;
+    }
+
+    private static <T> List<Long> ids(List<T> events, Function<T, Long> idGetter) {
+        return events.stream()
+                .map(idGetter)
+                .distinct()
+                .toList();
+    }
+}
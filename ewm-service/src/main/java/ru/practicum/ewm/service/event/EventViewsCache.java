@@ -0,0 +1,101 @@
+package ru.practicum.ewm.service.event;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.statsclient.StatsClient;
+import ru.practicum.statsclient.StatsUnavailableException;
+import ru.practicum.statsdto.UniqueMode;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsdto.ViewStatsRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Локальный кэш просмотров по uri события (W-TinyLFU, ограниченный размер).
+// После refresh-after-write отдается старое значение, а новое грузится в фоне;
+// после expire-after-write запись удаляется и следующий запрос ждет загрузки.
+// Пока сервис статистики недоступен, отдаются последние известные значения.
+@Slf4j
+@Component
+public class EventViewsCache {
+    private final StatsClient statsClient;
+    private final LoadingCache<String, Long> cache;
+
+    public EventViewsCache(StatsClient statsClient,
+                           MeterRegistry meterRegistry,
+                           @Value("${ewm.views-cache.maximum-size:10000}") long maximumSize,
+                           @Value("${ewm.views-cache.expire-after-write:60s}") Duration expireAfterWrite,
+                           @Value("${ewm.views-cache.refresh-after-write:5s}") Duration refreshAfterWrite) {
+        this.statsClient = statsClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .build(new ViewsLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "eventViews");
+    }
+
+    // uri -> просмотры; отсутствующие в кэше uri загружаются одним запросом.
+    // Если статистика недоступна, берем то, что есть в кэше, а остальным uri ставим 0, не запоминая его
+    public Map<String, Long> getViews(Collection<String> uris) {
+        try {
+            return cache.getAll(uris);
+        } catch (StatsUnavailableException e) {
+            log.warn("EventViewsCache / getViews: статистика недоступна, отдаем кэшированные просмотры: {}",
+                    e.getMessage());
+            Map<String, Long> views = new HashMap<>(cache.getAllPresent(uris));
+            uris.forEach(uri -> views.putIfAbsent(uri, 0L));
+            return views;
+        }
+    }
+
+    private Map<String, Long> loadViews(Set<? extends String> uris) {
+        List<ViewStats> viewStatsList = statsClient.getStats(new ViewStatsRequest(
+                LocalDateTime.now().minusYears(100),
+                LocalDateTime.now(),
+                List.copyOf(uris),
+                UniqueMode.EXACT
+        ));
+
+        Map<String, Long> views = new HashMap<>();
+        for (String uri : uris) {
+            views.put(uri, 0L);
+        }
+        for (ViewStats viewStats : viewStatsList) {
+            views.computeIfPresent(viewStats.getUri(), (uri, hits) -> hits + viewStats.getHits());
+        }
+        log.debug("EventViewsCache / loadViews: загружены просмотры {}", views);
+        return views;
+    }
+
+    private class ViewsLoader implements CacheLoader<String, Long> {
+        @Override
+        public Long load(String uri) {
+            return loadViews(Set.of(uri)).get(uri);
+        }
+
+        @Override
+        public Map<String, Long> loadAll(Set<? extends String> uris) {
+            return loadViews(uris);
+        }
+
+        // фоновое обновление не удалось — оставляем прежнее значение, попробуем после следующего refresh-after-write
+        @Override
+        public Long reload(String uri, Long oldValue) {
+            try {
+                return load(uri);
+            } catch (StatsUnavailableException e) {
+                log.debug("EventViewsCache / reload: статистика недоступна, сохраняем {} для {}", oldValue, uri);
+                return oldValue;
+            }
+        }
+    }
+}
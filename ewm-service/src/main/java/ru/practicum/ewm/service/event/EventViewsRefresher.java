@@ -0,0 +1,82 @@
+package ru.practicum.ewm.service.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.repository.EventRepository;
+import ru.practicum.statsclient.StatsClient;
+import ru.practicum.statsdto.UniqueMode;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsdto.ViewStatsRequest;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Периодически переносит просмотры опубликованных событий из сервиса статистики
+// в колонку events.views, чтобы сортировка по просмотрам выполнялась в SQL по индексу.
+// Таблица обходится пачками по id: один запрос к статистике на пачку.
+// Просмотры — точное число уникальных ip (unique=true), как и на странице события:
+// сохраненное значение не должно расходиться с тем, что видит пользователь.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventViewsRefresher {
+    private final EventRepository eventRepository;
+    private final StatsClient statsClient;
+
+    @Value("${ewm.views.refresh-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${ewm.views.refresh-interval-ms:60000}")
+    public void refresh() {
+        Long afterId = 0L;
+        int total = 0;
+        try {
+            List<Long> ids;
+            do {
+                ids = eventRepository.findIdsByState(EventState.PUBLISHED, afterId, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                eventRepository.updateViews(loadViews(ids));
+                total += ids.size();
+                afterId = ids.get(ids.size() - 1);
+            } while (ids.size() == batchSize);
+        } catch (Exception e) {
+            // сервис статистики недоступен — остаются прежние значения, попробуем в следующий раз
+            log.warn("Не удалось обновить просмотры событий после id {}", afterId, e);
+            return;
+        }
+        log.debug("EventViewsRefresher / refresh: обновлены просмотры {} событий", total);
+    }
+
+    private Map<Long, Long> loadViews(List<Long> ids) {
+        List<String> uris = ids.stream()
+                .map(EventStatsEnricher::toEventUri)
+                .toList();
+        List<ViewStats> viewStatsList = statsClient.getStats(new ViewStatsRequest(
+                LocalDateTime.now().minusYears(100),
+                LocalDateTime.now(),
+                uris,
+                UniqueMode.EXACT
+        ));
+
+        Map<Long, Long> views = new HashMap<>();
+        for (Long id : ids) {
+            views.put(id, 0L);
+        }
+        for (ViewStats viewStats : viewStatsList) {
+            Long eventId = EventStatsEnricher.parseEventId(viewStats.getUri());
+            if (eventId != null) {
+                views.computeIfPresent(eventId, (id, hits) -> hits + viewStats.getHits());
+            }
+        }
+        return views;
+    }
+}
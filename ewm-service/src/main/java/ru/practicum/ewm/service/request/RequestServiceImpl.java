@@ -1,7 +1,9 @@
 package ru.practicum.ewm.service.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.dto.request.ParticipationRequestDto;
 import ru.practicum.ewm.enums.EventState;
 import ru.practicum.ewm.enums.RequestStatus;
@@ -45,6 +47,7 @@ public class RequestServiceImpl implements RequestService {
 
     // Добавление запроса от текущего пользователя на участие в событии
     @Override
+    @Transactional
     public ParticipationRequestDto addRequest(Long userId, Long eventId) {
 
         // выгружаем данные пользователя, кто отправиляет запрос
@@ -58,10 +61,6 @@ public class RequestServiceImpl implements RequestService {
         // создаем запрос
         Request request = new Request(LocalDateTime.now(), event, requester, RequestStatus.PENDING);
 
-        if (requestRepository.existsByRequesterIdAndEventId(userId, eventId)) {
-            throw new AlreadyExistsException("Запрос уже существует: userId {}, eventId {} " + userId + eventId);
-        }
-
         if (event.getInitiator().getId().equals(userId)) {
             throw new AlreadyExistsException("Инициатор не мог быть запрашивающим лицом " + userId);
         }
@@ -69,12 +68,12 @@ public class RequestServiceImpl implements RequestService {
             throw new AlreadyExistsException("Событие еще не опубликовано");
         }
 
-        Long confirmedRequest = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
+        Long confirmedRequest = event.getConfirmedRequests();
         Long limit = event.getParticipantLimit();
 
         // если есть ограничение, то проверяем. Если ограничения нет, то автоматически подтверждаем запрос
         if (limit != 0) {
-            if (limit.equals(confirmedRequest)) {
+            if (confirmedRequest >= limit) {
                 throw new AlreadyExistsException("Получено максимальное количество подтвержденных запросов: " + limit);
             }
         } else {
@@ -86,15 +85,32 @@ public class RequestServiceImpl implements RequestService {
             request.setStatus(RequestStatus.CONFIRMED);
         }
 
-        requestRepository.save(request);
+        // проверка выше читает снимок — окончательно место занимаем атомарным UPDATE
+        if (request.getStatus() == RequestStatus.CONFIRMED
+                && eventRepository.reserveConfirmedRequest(eventId) == 0) {
+            throw new AlreadyExistsException("Получено максимальное количество подтвержденных запросов: " + limit);
+        }
+
+        // повторный запрос отсекает уникальный индекс (requester_id, event_id); вместе с исключением
+        // откатывается и занятое выше место
+        try {
+            requestRepository.saveAndFlush(request);
+        } catch (DataIntegrityViolationException e) {
+            throw new AlreadyExistsException("Запрос уже существует: userId " + userId + ", eventId " + eventId);
+        }
         return requestMapper.toParticipationRequestDto(request);
     }
 
     // Отмена своего запроса на участие в событии
     @Override
+    @Transactional
     public ParticipationRequestDto cancelRequest(Long userId, Long requestId) {
         Request request = requestRepository.findByIdAndRequesterId(requestId, userId)
                 .orElseThrow(() -> new NotFoundException("Запрос с идентификатором и/или идентификатором отправителя запроса не существует" + requestId + userId));
+        // отмена одобренной заявки освобождает место
+        if (request.getStatus() == RequestStatus.CONFIRMED) {
+            eventRepository.addConfirmedRequests(request.getEvent().getId(), -1);
+        }
         request.setStatus(RequestStatus.CANCELED);
         requestRepository.save(request);
         return requestMapper.toParticipationRequestDto(request);
@@ -0,0 +1,21 @@
+-- полнотекстовый поиск по событиям: заголовок краткого описания весомее полного описания
+ALTER TABLE events
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('russian', coalesce(annotation, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_events_search_vector ON events USING GIN (search_vector);
+
+-- публичная выдача с onlyAvailable=true: опубликованные события со свободными местами, по дате (event_date, id).
+-- Поиск пишет state = 'PUBLISHED' литералом и повторяет выражение свободных мест дословно,
+-- поэтому планировщик выводит из условий запроса оба условия индекса.
+-- Прежний idx_events_available держал state в ключе, рассчитывая на параметр, и теперь не нужен
+DROP INDEX IF EXISTS idx_events_available;
+CREATE INDEX IF NOT EXISTS idx_events_published_available ON events (event_date, id)
+    WHERE state = 'PUBLISHED'
+        AND (COALESCE(participation_limit, 0) = 0 OR confirmed_requests < participation_limit);
+
+-- публичная выдача: только опубликованные события, по дате (event_date, id)
+CREATE INDEX IF NOT EXISTS idx_events_published_event_date ON events (event_date, id)
+    WHERE state = 'PUBLISHED';
@@ -36,11 +36,24 @@ CREATE TABLE IF NOT EXISTS events
     request_moderation  BOOLEAN,
     state               VARCHAR(30),
     title               VARCHAR(120),
+    confirmed_requests  BIGINT NOT NULL DEFAULT 0,
+    views               BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT fk_category_events FOREIGN KEY (category_id) REFERENCES categories (id) ON DELETE CASCADE,
     CONSTRAINT fk_user_events FOREIGN KEY (initiator_id) REFERENCES users (id) ON DELETE CASCADE,
     CONSTRAINT fk_location_events FOREIGN KEY (location_id) REFERENCES locations (id) ON DELETE CASCADE
 );
 
+-- keyset-пагинация событий по (event_date, id)
+CREATE INDEX IF NOT EXISTS idx_events_event_date_id ON events (event_date, id);
+-- сортировка по популярности
+CREATE INDEX IF NOT EXISTS idx_events_views_id ON events (views DESC, id);
+-- фильтр по статусу и диапазону дат (админский поиск)
+CREATE INDEX IF NOT EXISTS idx_events_state_event_date ON events (state, event_date);
+-- события инициатора и фильтр users
+CREATE INDEX IF NOT EXISTS idx_events_initiator_event_date ON events (initiator_id, event_date, id);
+-- фильтр categories и existsByCategoryId при удалении категории
+CREATE INDEX IF NOT EXISTS idx_events_category ON events (category_id);
+
 CREATE TABLE IF NOT EXISTS compilations
 (
     id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -56,9 +69,14 @@ CREATE TABLE IF NOT EXISTS requests
     requester_id BIGINT,
     status       VARCHAR(30),
     CONSTRAINT fk_event_requesters FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE,
-    CONSTRAINT fk_requests_requesters FOREIGN KEY (requester_id) REFERENCES users (id) ON DELETE CASCADE
+    CONSTRAINT fk_requests_requesters FOREIGN KEY (requester_id) REFERENCES users (id) ON DELETE CASCADE,
+    -- один запрос пользователя на событие; индекс заодно обслуживает выборки по requester_id
+    CONSTRAINT uq_requests_requester_event UNIQUE (requester_id, event_id)
 );
 
+-- заявки события по статусу: подтверждение заявок и сверка счетчика confirmed_requests
+CREATE INDEX IF NOT EXISTS idx_requests_event_status ON requests (event_id, status);
+
 CREATE TABLE IF NOT EXISTS comments
 (
     id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -70,6 +88,9 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT fk_user_comment FOREIGN KEY (commentator_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+-- лента комментариев события: новые сверху, keyset по (created, id)
+CREATE INDEX IF NOT EXISTS idx_comments_event_created_id ON comments (event_id, created DESC, id DESC);
+
 CREATE TABLE IF NOT EXISTS compilations_events
 (
     id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -78,3 +99,7 @@ CREATE TABLE IF NOT EXISTS compilations_events
     CONSTRAINT fk_events_compilations_events FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE,
     CONSTRAINT fk_compilations_compilations_events FOREIGN KEY (compilation_id) REFERENCES compilations (id) ON DELETE CASCADE
 );
+
+-- загрузка событий подборки и каскадное удаление по событию
+CREATE INDEX IF NOT EXISTS idx_compilations_events_compilation ON compilations_events (compilation_id, event_id);
+CREATE INDEX IF NOT EXISTS idx_compilations_events_event ON compilations_events (event_id);
@@ -0,0 +1,80 @@
+package ru.practicum.ewm;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.enums.RequestStatus;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Строки для интеграционных тестов: вставляются через JDBC, минуя сервисы и их проверки
+public class TestData {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestData(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long user() {
+        long n = SEQUENCE.incrementAndGet();
+        return insert("users", Map.of("email", "user" + n + "@test.ru", "name", "user" + n));
+    }
+
+    public long category() {
+        return insert("categories", Map.of("name", "category" + SEQUENCE.incrementAndGet()));
+    }
+
+    public long event(long initiatorId, long categoryId, EventState state, long participantLimit,
+                      boolean requestModeration) {
+        long locationId = insert("locations", Map.of("lat", 55.75, "lon", 37.62));
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("annotation", "annotation of a test event");
+        columns.put("description", "description of a test event");
+        columns.put("category_id", categoryId);
+        columns.put("initiator_id", initiatorId);
+        columns.put("location_id", locationId);
+        columns.put("created_on", LocalDateTime.now().minusDays(1));
+        columns.put("published_on", state == EventState.PUBLISHED ? LocalDateTime.now() : null);
+        columns.put("event_date", LocalDateTime.now().plusDays(SEQUENCE.incrementAndGet() % 30 + 1));
+        columns.put("paid", false);
+        columns.put("participation_limit", participantLimit);
+        columns.put("request_moderation", requestModeration);
+        columns.put("state", state.name());
+        columns.put("title", "event" + SEQUENCE.get());
+        return insert("events", columns);
+    }
+
+    public long request(long eventId, long requesterId, RequestStatus status) {
+        return insert("requests", Map.of("created", LocalDateTime.now(), "event_id", eventId,
+                "requester_id", requesterId, "status", status.name()));
+    }
+
+    public long comment(long eventId, long commentatorId, LocalDateTime created) {
+        return insert("comments", Map.of("created", created, "event_id", eventId,
+                "commentator_id", commentatorId, "comment_text", "comment" + SEQUENCE.incrementAndGet()));
+    }
+
+    public long compilation(List<Long> eventIds) {
+        long compilationId = insert("compilations",
+                Map.of("pinned", false, "title", "compilation" + SEQUENCE.incrementAndGet()));
+        eventIds.forEach(eventId -> insert("compilations_events",
+                Map.of("compilation_id", compilationId, "event_id", eventId)));
+        return compilationId;
+    }
+
+    private long insert(String table, Map<String, Object> columns) {
+        return new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName(table)
+                .withoutTableColumnMetaDataAccess()
+                .usingColumns(columns.keySet().toArray(String[]::new))
+                .usingGeneratedKeyColumns("id")
+                .executeAndReturnKey(columns)
+                .longValue();
+    }
+}
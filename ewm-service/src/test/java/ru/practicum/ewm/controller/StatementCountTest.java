@@ -0,0 +1,146 @@
+package ru.practicum.ewm.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.ewm.TestData;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.statsclient.StatsClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Число SQL-выражений на запрос не зависит от числа событий в ответе: связи событий грузятся
+// entity graph, проекцией или пачками (default_batch_fetch_size), а не по одной на строку.
+// Запросы идут через MockMvc, то есть с open-in-view, как в работающем сервисе.
+// Фоновое обновление просмотров отложено, чтобы не попадать в общую статистику Hibernate
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ewm-statements",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "ewm.views.refresh-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatementCountTest {
+    private static final int FEW = 2;
+    private static final int MORE = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @MockBean
+    private StatsClient statsClient;
+
+    private TestData data;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void publicEventListUsesFixedNumberOfStatements() throws Exception {
+        long categoryId = data.category();
+        String url = "/events?categories=" + categoryId;
+
+        addEvents(categoryId, FEW);
+        long few = statements(url);
+        addEvents(categoryId, MORE - FEW);
+
+        assertThat(statements(url)).isEqualTo(few).isEqualTo(1);
+    }
+
+    @Test
+    void adminEventListUsesFixedNumberOfStatements() throws Exception {
+        long categoryId = data.category();
+        String url = "/admin/events?categories=" + categoryId;
+
+        addEvents(categoryId, FEW);
+        long few = statements(url);
+        addEvents(categoryId, MORE - FEW);
+
+        assertThat(statements(url)).isEqualTo(few).isEqualTo(2);
+    }
+
+    @Test
+    void initiatorEventListUsesFixedNumberOfStatements() throws Exception {
+        long categoryId = data.category();
+        long initiatorId = data.user();
+        String url = "/users/" + initiatorId + "/events";
+
+        for (int i = 0; i < FEW; i++) {
+            data.event(initiatorId, categoryId, EventState.PENDING, 0, false);
+        }
+        long few = statements(url);
+        for (int i = FEW; i < MORE; i++) {
+            data.event(initiatorId, categoryId, EventState.PENDING, 0, false);
+        }
+
+        assertThat(statements(url)).isEqualTo(few).isEqualTo(1);
+    }
+
+    @Test
+    void compilationUsesFixedNumberOfStatements() throws Exception {
+        long categoryId = data.category();
+
+        long few = statements("/compilations/" + data.compilation(addEvents(categoryId, FEW)));
+        long more = statements("/compilations/" + data.compilation(addEvents(categoryId, MORE)));
+
+        assertThat(more).isEqualTo(few).isEqualTo(1);
+    }
+
+    @Test
+    void publishedEventLoadsAssociationsWithGraph() throws Exception {
+        long eventId = addEvents(data.category(), 1).get(0);
+
+        assertThat(statements("/events/" + eventId)).isEqualTo(1);
+    }
+
+    // у каждого события свой инициатор, категория общая
+    private List<Long> addEvents(long categoryId, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(data.event(data.user(), categoryId, EventState.PUBLISHED, 0, false));
+        }
+        return ids;
+    }
+
+    // ewm.sql.statements считает на DataSource все выражения запроса — и Hibernate, и JdbcTemplate
+    private long statements(String url) throws Exception {
+        double before = recordedStatements();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        // ленивые связи не догружались в представлении (open-in-view)
+        assertThat(statistics.getEntityFetchCount()).as("entity fetches for %s", url).isZero();
+        assertThat(statistics.getCollectionFetchCount()).as("collection fetches for %s", url).isZero();
+        return Math.round(recordedStatements() - before);
+    }
+
+    private double recordedStatements() {
+        return meterRegistry.find("ewm.sql.statements").summaries().stream()
+                .mapToDouble(DistributionSummary::totalAmount)
+                .sum();
+    }
+}
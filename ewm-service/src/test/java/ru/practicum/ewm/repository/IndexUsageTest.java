@@ -0,0 +1,270 @@
+package ru.practicum.ewm.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.TestData;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.enums.RequestStatus;
+import ru.practicum.ewm.model.Event;
+import ru.practicum.ewm.model.EventSearchCriteria;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Планы запросов репозиториев на заполненных таблицах: каждый путь доступа идет по своему индексу
+// из schema.sql, а не полным просмотром. Вызываются сами методы репозиториев, а EXPLAIN строится
+// по SQL и параметрам, которые они отправили в БД, поэтому изменение запроса в репозитории
+// попадает в проверку. Частичные индексы schema-postgresql.sql H2 не поддерживает,
+// их здесь не проверить — только EXPLAIN на PostgreSQL
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:ewm-indexes")
+@Import(IndexUsageTest.RecordingConfig.class)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndexUsageTest {
+    private static final int USERS = 50;
+    private static final int CATEGORIES = 10;
+    private static final int EVENTS = 300;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private RequestRepository requestRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private CompilationRepository compilationRepository;
+
+    private long eventId;
+    private long userId;
+    private long categoryId;
+    private long compilationId;
+
+    @BeforeAll
+    void seed() {
+        TestData data = new TestData(jdbcTemplate);
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(data.user());
+        }
+        List<Long> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(data.category());
+        }
+        List<Long> events = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            EventState state = i % 3 == 0 ? EventState.PENDING : EventState.PUBLISHED;
+            events.add(data.event(users.get(i % USERS), categories.get(i % CATEGORIES), state, 10, true));
+        }
+        for (int i = 0; i < EVENTS; i++) {
+            long event = events.get(i);
+            for (int j = 1; j <= 3; j++) {
+                data.request(event, users.get((i + j) % USERS), j == 1 ? RequestStatus.CONFIRMED : RequestStatus.PENDING);
+            }
+            data.comment(event, users.get(i % USERS), LocalDateTime.now().minusMinutes(i));
+        }
+        eventId = events.get(EVENTS / 2);
+        userId = users.get(USERS / 2);
+        categoryId = categories.get(CATEGORIES / 2);
+        compilationId = data.compilation(events.subList(0, 20));
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    // addRequest и подтверждение заявок
+    @Test
+    void requestsByEventAndStatusUseEventStatusIndex() {
+        assertThat(explain(() -> requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED)))
+                .contains("IDX_REQUESTS_EVENT_STATUS");
+    }
+
+    // Уникальность заявки проверяется ограничением, его индекс обслуживает и заявки пользователя.
+    // H2 сам индексирует внешние ключи и при параметре вместо значения выбирает индекс fk_* с тем же
+    // ведущим столбцом; в PostgreSQL таких индексов нет, поэтому здесь и ниже, где так бывает,
+    // проверяется только поиск по индексу на нужном столбце
+    @Test
+    void requestsOfRequesterUseRequesterIndex() {
+        assertThat(explain(() -> requestRepository.findAllByRequesterIdAndNotInitiator(userId)))
+                .containsPattern(indexSeek("REQUESTER_ID"));
+    }
+
+    // как в EventServiceImpl.getEventsByInitiator с курсором: порядок (event_date, id) читается индексом
+    @Test
+    void initiatorEventsUseInitiatorIndex() {
+        EventSearchCriteria criteria = new EventSearchCriteria(null, List.of(userId), null, null, null, false,
+                null, null, null);
+
+        assertThat(explain(() -> eventRepository.searchShortEvents(criteria, null, 11)))
+                .containsPattern(indexSeek("INITIATOR_ID"));
+    }
+
+    @Test
+    void categoryCheckUsesCategoryIndex() {
+        assertThat(explain(() -> eventRepository.existsByCategoryId(categoryId)))
+                .containsPattern(indexSeek("CATEGORY_ID"));
+    }
+
+    // как в EventServiceImpl для поиска администратора: состояния и диапазон дат
+    @Test
+    void adminSearchByStateUsesStateIndex() {
+        EventSearchCriteria criteria = new EventSearchCriteria(null, null, List.of(EventState.PENDING.name()), null,
+                null, false, LocalDateTime.now(), LocalDateTime.now().plusDays(3), null);
+
+        assertThat(explain(() -> eventRepository.searchEvents(criteria, PageRequest.of(0, 10), Event.GRAPH_FULL)))
+                .contains("IDX_EVENTS_STATE_EVENT_DATE");
+    }
+
+    @Test
+    void eventCommentsUseEventCreatedIndex() {
+        assertThat(explain(() -> commentRepository.findAllByEvent_IdOrderByCreatedDescIdDesc(eventId,
+                PageRequest.of(0, 10))))
+                .containsPattern(indexSeek("EVENT_ID"));
+    }
+
+    @Test
+    void compilationEventsUseCompilationIndex() {
+        assertThat(explain(() -> compilationRepository.findWithEventsById(compilationId)))
+                .contains("IDX_COMPILATIONS_EVENTS_COMPILATION");
+    }
+
+    // поиск по какому-либо индексу с ведущим столбцом column
+    private static String indexSeek(String column) {
+        return "/\\* PUBLIC\\.\\w+: " + column + " = ";
+    }
+
+    // планы всех SELECT, выполненных action, через перевод строки; ни один не читает таблицу целиком.
+    // action выполняется в транзакции, как в сервисах: searchEvents догружает сущности тем же EntityManager
+    private String explain(Runnable action) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        List<RecordedStatement> statements = RecordingConfig.record(() ->
+                transaction.executeWithoutResult(status -> action.run()));
+        List<String> plans = new ArrayList<>();
+        for (RecordedStatement statement : statements) {
+            if (statement.sql().stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+                plans.add(jdbcTemplate.execute((Connection connection) -> explain(connection, statement)));
+            }
+        }
+        assertThat(plans).as("SELECT, выполненные репозиторием").isNotEmpty();
+        plans.forEach(plan -> assertThat(plan).doesNotContain("TABLESCAN"));
+        return String.join("\n", plans);
+    }
+
+    private static String explain(Connection connection, RecordedStatement statement) throws SQLException {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            for (Invocation setter : statement.setters()) {
+                try {
+                    setter.method().invoke(explain, setter.args());
+                } catch (ReflectiveOperationException e) {
+                    throw new SQLException("Не удалось повторить " + setter.method().getName(), e);
+                }
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                rs.next();
+                return rs.getString(1).toUpperCase();
+            }
+        }
+    }
+
+    private record Invocation(Method method, Object[] args) {
+    }
+
+    private record RecordedStatement(String sql, List<Invocation> setters) {
+    }
+
+    // Оборачивает DataSource и запоминает в текущем потоке SQL подготовленных выражений
+    // вместе с вызовами set*(index, value), чтобы повторить их на EXPLAIN
+    @TestConfiguration
+    static class RecordingConfig {
+        private static final ThreadLocal<List<RecordedStatement>> RECORDED = new ThreadLocal<>();
+
+        static List<RecordedStatement> record(Runnable action) {
+            RECORDED.set(new ArrayList<>());
+            try {
+                action.run();
+                return RECORDED.get();
+            } finally {
+                RECORDED.remove();
+            }
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return new DelegatingDataSource(dataSource) {
+                            @Override
+                            public Connection getConnection() throws SQLException {
+                                return recording(super.getConnection());
+                            }
+                        };
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static Connection recording(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) -> {
+                List<RecordedStatement> recorded = RECORDED.get();
+                if (recorded != null && method.getName().equals("prepareStatement")) {
+                    RecordedStatement statement = new RecordedStatement((String) args[0], new ArrayList<>());
+                    recorded.add(statement);
+                    return proxy(PreparedStatement.class, result, (setter, setterArgs, ignored) -> {
+                        if (setter.getName().startsWith("set") && setterArgs != null && setterArgs.length >= 2
+                                && setterArgs[0] instanceof Integer) {
+                            statement.setters().add(new Invocation(setter, setterArgs));
+                        }
+                        return ignored;
+                    });
+                }
+                return result;
+            });
+        }
+
+        private interface AfterCall {
+            Object apply(Method method, Object[] args, Object result) throws Throwable;
+        }
+
+        private static <T> T proxy(Class<T> type, Object target, AfterCall afterCall) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        Object result;
+                        try {
+                            result = method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        return afterCall.apply(method, args, result);
+                    }));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.ewm.service.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewm.TestData;
+import ru.practicum.ewm.dto.request.EventRequestStatusUpdateRequest;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.enums.RequestStatus;
+import ru.practicum.ewm.enums.RequestStatusUpdate;
+import ru.practicum.ewm.exception.AlreadyExistsException;
+import ru.practicum.ewm.service.event.EventService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Лимит участников под параллельной нагрузкой: addRequest с авто-подтверждением и updateRequest
+// занимают места одним условным UPDATE и не должны превысить participant_limit
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:ewm-limit;LOCK_TIMEOUT=30000")
+@ActiveProfiles("test")
+class ParticipantLimitConcurrencyTest {
+    private static final int LIMIT = 5;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private EventService eventService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+    private long initiatorId;
+    private long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+        initiatorId = data.user();
+        categoryId = data.category();
+    }
+
+    @Test
+    void concurrentAutoConfirmedRequestsDoNotOversubscribe() throws Exception {
+        long eventId = data.event(initiatorId, categoryId, EventState.PUBLISHED, LIMIT, false);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS * 2; i++) {
+            long userId = data.user();
+            tasks.add(() -> succeeded(() -> requestService.addRequest(userId, eventId)));
+        }
+
+        List<Boolean> results = runConcurrently(tasks);
+
+        assertThat(results.stream().filter(Boolean::booleanValue).count()).isEqualTo(LIMIT);
+        assertCounterMatchesConfirmed(eventId, LIMIT);
+    }
+
+    @Test
+    void concurrentConfirmationsAndAutoConfirmationsDoNotOversubscribe() throws Exception {
+        long eventId = data.event(initiatorId, categoryId, EventState.PUBLISHED, LIMIT, false);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            // пачка из двух ожидающих заявок на подтверждение и одна новая заявка с авто-подтверждением
+            List<Long> pending = List.of(data.request(eventId, data.user(), RequestStatus.PENDING),
+                    data.request(eventId, data.user(), RequestStatus.PENDING));
+            EventRequestStatusUpdateRequest confirm =
+                    new EventRequestStatusUpdateRequest(pending, RequestStatusUpdate.CONFIRMED);
+            tasks.add(() -> succeeded(() -> eventService.updateRequest(initiatorId, eventId, confirm)));
+            long userId = data.user();
+            tasks.add(() -> succeeded(() -> requestService.addRequest(userId, eventId)));
+        }
+
+        runConcurrently(tasks);
+
+        // заявок больше, чем мест, поэтому места заняты все, но не больше лимита
+        assertCounterMatchesConfirmed(eventId, LIMIT);
+    }
+
+    private void assertCounterMatchesConfirmed(long eventId, long expected) {
+        Long confirmed = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM requests WHERE event_id = ? AND status = 'CONFIRMED'", Long.class, eventId);
+        Long counter = jdbcTemplate.queryForObject(
+                "SELECT confirmed_requests FROM events WHERE id = ?", Long.class, eventId);
+        assertThat(confirmed).isEqualTo(expected);
+        assertThat(counter).isEqualTo(confirmed);
+    }
+
+    // отказ по лимиту — ожидаемый исход, любое другое исключение валит тест
+    private static boolean succeeded(Runnable call) {
+        try {
+            call.run();
+            return true;
+        } catch (AlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    // все задачи стартуют одновременно после общего сигнала
+    private static List<Boolean> runConcurrently(List<Callable<Boolean>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Callable<Boolean> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<Boolean> results = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.statsclient;
+
+import java.time.Duration;
+
+// Автомат CLOSED -> OPEN -> HALF_OPEN: после failureThreshold ошибок подряд вызовы отклоняются
+// без обращения к серверу; по истечении openDuration пропускается один пробный вызов,
+// его результат решает, закрыть автомат или снова открыть
+class CircuitBreaker {
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    // true — вызов можно выполнять; после него обязателен onSuccess или onFailure
+    synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.nanoTime() - openedAt < openNanos) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                yield true;
+            }
+            // пробный вызов уже выполняется
+            case HALF_OPEN -> false;
+        };
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            failures = 0;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,199 @@
+package ru.practicum.statsclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.statsdto.EndpointHit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Ограниченная очередь хитов: поток запроса только кладет хит в очередь,
+// фоновый поток забирает хиты пачками и передает их отправителю
+@Slf4j
+public class HitBatcher implements AutoCloseable {
+    // при переполнении в лог пишется не каждый отброшенный хит, а сводка не чаще раза в интервал
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final BlockingQueue<EndpointHit> queue;
+    private final Consumer<List<EndpointHit>> sender;
+    private final int flushSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong droppedSinceReport = new AtomicLong();
+    private final AtomicLong lastDropReport = new AtomicLong(System.nanoTime());
+    private final int queueCapacity;
+    private final AtomicInteger retrying = new AtomicInteger();
+
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter sent;
+    private final Counter failed;
+
+    public HitBatcher(Consumer<List<EndpointHit>> sender,
+                      int capacity,
+                      int flushSize,
+                      Duration flushInterval,
+                      OverflowPolicy overflowPolicy,
+                      int maxAttempts,
+                      Duration retryBackoff,
+                      MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.queueCapacity = capacity;
+        this.sender = sender;
+        this.flushSize = flushSize;
+        this.overflowPolicy = overflowPolicy;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-hit-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::flush,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("stats.client.hits.queue.depth", queue, BlockingQueue::size)
+                .description("Количество хитов, ожидающих отправки")
+                .register(meterRegistry);
+        Gauge.builder("stats.client.hits.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Свободное место в очереди хитов")
+                .register(meterRegistry);
+        this.enqueued = meterRegistry.counter("stats.client.hits", "result", "enqueued");
+        this.dropped = meterRegistry.counter("stats.client.hits", "result", "dropped");
+        this.sent = meterRegistry.counter("stats.client.hits", "result", "sent");
+        this.failed = meterRegistry.counter("stats.client.hits", "result", "failed");
+    }
+
+    public void add(EndpointHit hit) {
+        if (!offer(hit)) {
+            dropped.increment();
+            droppedSinceReport.incrementAndGet();
+            reportDrops();
+            return;
+        }
+        enqueued.increment();
+
+        // пачка набралась — не ждем таймера
+        if (queue.size() >= flushSize && flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    flushScheduled.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    // забираем из очереди все, что накопилось, пачками по flushSize
+    void flush() {
+        List<EndpointHit> batch = new ArrayList<>(flushSize);
+        while (queue.drainTo(batch, flushSize) > 0) {
+            send(batch);
+            batch = new ArrayList<>(flushSize);
+        }
+        reportDrops();
+    }
+
+    // Повторяется только пачка, которая точно не дошла до сервиса (HitsNotDeliveredException):
+    // после таймаута или 5xx сервис мог ее уже записать, и повтор задвоил бы хиты.
+    // Повтор ставится в executor с паузой, а не ждет в sleep — очередь тем временем продолжает разбираться.
+    // Отклоненная (4xx) пачка делится пополам, чтобы один неверный хит не потянул за собой остальные
+    private void send(List<EndpointHit> batch) {
+        send(batch, 1, retryBackoff);
+    }
+
+    private void send(List<EndpointHit> batch, int attempt, Duration backoff) {
+        try {
+            sender.accept(batch);
+            sent.increment(batch.size());
+        } catch (HitsRejectedException e) {
+            if (batch.size() > 1) {
+                send(batch.subList(0, batch.size() / 2));
+                send(batch.subList(batch.size() / 2, batch.size()));
+            } else {
+                failed.increment();
+                log.warn("Статистический сервис отклонил хит {}: {}", batch.get(0), e.getMessage());
+            }
+        } catch (HitsNotDeliveredException e) {
+            if (attempt >= maxAttempts || !scheduleRetry(batch, attempt + 1, backoff)) {
+                failed.increment(batch.size());
+                log.warn("Не удается отправить пакет из {} хитов за {} попыток", batch.size(), attempt, e);
+            }
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            log.warn("Пакет из {} хитов не подтвержден сервисом, повтор мог бы его задвоить", batch.size(), e);
+        }
+    }
+
+    // ожидающих повтора хитов не больше емкости очереди, иначе при долгом отказе они копились бы без предела
+    private boolean scheduleRetry(List<EndpointHit> batch, int attempt, Duration backoff) {
+        if (retrying.addAndGet(batch.size()) > queueCapacity) {
+            retrying.addAndGet(-batch.size());
+            return false;
+        }
+        try {
+            executor.schedule(() -> {
+                retrying.addAndGet(-batch.size());
+                send(batch, attempt, backoff.multipliedBy(2));
+            }, backoff.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            retrying.addAndGet(-batch.size());
+            return false;
+        }
+    }
+
+    private void reportDrops() {
+        long last = lastDropReport.get();
+        long now = System.nanoTime();
+        if (now - last < DROP_REPORT_INTERVAL_NANOS || !lastDropReport.compareAndSet(last, now)) {
+            return;
+        }
+        long count = droppedSinceReport.getAndSet(0);
+        if (count > 0) {
+            log.warn("Очередь хитов переполнена, за {} с отброшено хитов: {}",
+                    TimeUnit.NANOSECONDS.toSeconds(now - last), count);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // отправляем остаток при остановке приложения
+        flush();
+    }
+
+    private boolean offer(EndpointHit hit) {
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            return queue.offer(hit);
+        }
+        try {
+            queue.put(hit);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.statsclient;
+
+// пачка хитов точно не дошла до сервиса статистики (нет соединения или 503):
+// ее можно отправить повторно, не рискуя записать хиты дважды
+public class HitsNotDeliveredException extends RuntimeException {
+    public HitsNotDeliveredException(String message) {
+        super(message);
+    }
+
+    public HitsNotDeliveredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
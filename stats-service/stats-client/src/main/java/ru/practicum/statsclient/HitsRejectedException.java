@@ -0,0 +1,8 @@
+package ru.practicum.statsclient;
+
+// сервис статистики отклонил пачку хитов ответом 4xx: повтор той же пачки ничего не изменит
+public class HitsRejectedException extends RuntimeException {
+    public HitsRejectedException(String message) {
+        super(message);
+    }
+}
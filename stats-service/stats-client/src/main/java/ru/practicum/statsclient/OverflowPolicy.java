@@ -0,0 +1,7 @@
+package ru.practicum.statsclient;
+
+// поведение очереди хитов при переполнении
+public enum OverflowPolicy {
+    DROP,  // отбрасываем новый хит, запрос пользователя не ждет
+    BLOCK  // ждем освобождения места в очереди
+}
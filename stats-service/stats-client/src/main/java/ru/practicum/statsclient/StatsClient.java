@@ -1,28 +1,50 @@
 package ru.practicum.statsclient;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import ru.practicum.statsdto.EndpointHit;
 import ru.practicum.statsdto.ViewStats;
 import ru.practicum.statsdto.ViewStatsRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 
 @Slf4j
@@ -30,60 +52,176 @@ import java.util.List;
 public class StatsClient {
     private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    // stats.client.requests{operation, outcome}: время обращений к сервису статистики
+    private static final String REQUESTS_TIMER = "stats.client.requests";
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_TIMEOUT = "timeout";
+    private static final String OUTCOME_ERROR = "error";
+
     private final String application;
 
     private final String statsServiceUri;
 
-    private final ObjectMapper json;
+    private final URI hitBatchUri;
+
+    // читатель и писатель создаются один раз: ObjectMapper не ищет сериализатор на каждый вызов
+    private final ObjectReader viewStatsReader;
+
+    private final ObjectWriter hitsWriter;
 
     private final HttpClient httpClient;
 
+    private final HitBatcher hitBatcher;
+
+    private final MeterRegistry meterRegistry;
+
+    // запрос статистики: срок ответа, ограничение одновременных вызовов и автомат отключения
+    private final Duration statsTimeout;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter rejectedByBulkhead;
+    private final Counter rejectedByCircuit;
+
+    private final Duration hitsTimeout;
+
     @Autowired
     public StatsClient(@Value("ewm-main-service") String application,
                        @Value("${stats-server.url}") String statsServiceUri,
-                       ObjectMapper json) {
+                       @Value("${stats-server.hits.queue-capacity:10000}") int queueCapacity,
+                       @Value("${stats-server.hits.flush-size:100}") int flushSize,
+                       @Value("${stats-server.hits.flush-interval:1s}") Duration flushInterval,
+                       @Value("${stats-server.hits.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                       @Value("${stats-server.hits.timeout:5s}") Duration hitsTimeout,
+                       @Value("${stats-server.hits.max-attempts:3}") int hitsMaxAttempts,
+                       @Value("${stats-server.hits.retry-backoff:200ms}") Duration hitsRetryBackoff,
+                       @Value("${stats-server.stats.timeout:1s}") Duration statsTimeout,
+                       @Value("${stats-server.stats.max-concurrent:20}") int maxConcurrentStats,
+                       @Value("${stats-server.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                       @Value("${stats-server.circuit-breaker.open-duration:30s}") Duration openDuration,
+                       ObjectMapper json,
+                       MeterRegistry meterRegistry) {
         this.application = application;
         this.statsServiceUri = statsServiceUri;
-        this.json = json;
+        this.hitBatchUri = URI.create(statsServiceUri + "/hit/batch");
+        // поток тела закрывает сам клиент после дочитывания, а не Jackson по концу массива
+        this.viewStatsReader = json.readerForListOf(ViewStats.class).without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        this.hitsWriter = json.writerFor(new TypeReference<List<EndpointHit>>() {
+        });
+        this.meterRegistry = meterRegistry;
+        // HTTP/2 (h2c по http): запросы статистики и пачки хитов идут параллельно по одному соединению;
+        // если сервер не поддерживает HTTP/2, клиент остается на HTTP/1.1
         this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
                 .connectTimeout(Duration.ofSeconds(2))
                 .build();
+        this.hitBatcher = new HitBatcher(this::sendHits, queueCapacity, flushSize, flushInterval,
+                overflowPolicy, hitsMaxAttempts, hitsRetryBackoff, meterRegistry);
+        this.hitsTimeout = hitsTimeout;
+
+        this.statsTimeout = statsTimeout;
+        this.bulkhead = new Semaphore(maxConcurrentStats);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.rejectedByBulkhead = meterRegistry.counter("stats.client.rejected", "reason", "bulkhead");
+        this.rejectedByCircuit = meterRegistry.counter("stats.client.rejected", "reason", "circuit");
+        Gauge.builder("stats.client.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Состояние автомата: 0 — закрыт, 1 — открыт, 2 — пробный вызов")
+                .register(meterRegistry);
     }
 
+    // хит только ставится в очередь, отправка идет в фоновом потоке
     public void hit(String userIp, String requestUri) {
         EndpointHit hit = EndpointHit.builder()
                 .app(application)
                 .ip(userIp)
                 .uri(requestUri)
-                .timestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
+                .timestamp(LocalDateTime.now().format(DTF))
                 .build();
 
-        log.info("StatsClient / hit: {}", hit.toString());
+        log.debug("StatsClient / hit: {}", hit);
+
+        hitBatcher.add(hit);
+    }
+
+    @PreDestroy
+    public void close() {
+        hitBatcher.close();
+    }
 
+    // отправка пачки хитов одним запросом, вызывается из потока HitBatcher
+    private void sendHits(List<EndpointHit> hits) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_ERROR;
         try {
             HttpRequest.BodyPublisher bodyPublisher = HttpRequest
                     .BodyPublishers
-                    .ofString(json.writeValueAsString(hit));
+                    .ofByteArray(hitsWriter.writeValueAsBytes(hits));
 
             // формируем запрос
             HttpRequest hitRequest = HttpRequest.newBuilder()
-                    .uri(URI.create(statsServiceUri + "/hit"))
+                    .uri(hitBatchUri)
+                    .timeout(hitsTimeout)
                     .POST(bodyPublisher)
                     .header(HttpHeaders.CONTENT_TYPE, "application/json")
                     .header(HttpHeaders.ACCEPT, "application/json")
                     .build();
 
-            log.info("StatsClient / hitRequest: {}", hitRequest.toString());
-
             // отправляем сформированный запрос
             HttpResponse<Void> response = httpClient.send(hitRequest, HttpResponse.BodyHandlers.discarding());
             log.debug("Ответ от статистического сервиса: {}", response);
-        } catch (Exception e) {
-            log.warn("Не удается записать  hit", e);
+
+            HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+            // 503 отдается до обработки запроса, поэтому такую пачку можно повторить
+            if (status.isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)) {
+                throw new HitsNotDeliveredException("Статистический сервис недоступен: " + response.statusCode());
+            }
+            if (status.is4xxClientError()) {
+                throw new HitsRejectedException("Статистический сервис отклонил пачку хитов: " + response.statusCode());
+            }
+            if (!status.is2xxSuccessful()) {
+                throw new IllegalStateException("Статистический сервис вернул статус " + response.statusCode());
+            }
+            outcome = OUTCOME_SUCCESS;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Отправка хитов прервана", e);
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            throw new HitsNotDeliveredException("Не удается подключиться к статистическому сервису", e);
+        } catch (HttpTimeoutException e) {
+            outcome = OUTCOME_TIMEOUT;
+            throw new UncheckedIOException("Истекло время записи пакета хитов", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удается записать пакет хитов", e);
+        } finally {
+            sample.stop(requestTimer("hit", outcome));
         }
     }
 
+    // Медленный или недоступный сервис статистики не должен задерживать чтение событий:
+    // на запрос дается statsTimeout, одновременно выполняется не больше max-concurrent запросов,
+    // а после серии ошибок автомат на время перестает обращаться к серверу.
+    // При любом отказе бросается StatsUnavailableException — вызывающий код оставляет прежние
+    // значения просмотров, а не подставляет нули
     public List<ViewStats> getStats(ViewStatsRequest request) {
+        if (!bulkhead.tryAcquire()) {
+            rejectedByBulkhead.increment();
+            throw new StatsUnavailableException("Слишком много одновременных запросов статистики");
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                rejectedByCircuit.increment();
+                throw new StatsUnavailableException("Запросы статистики временно отключены после серии ошибок");
+            }
+            return fetchStats(request);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private List<ViewStats> fetchStats(ViewStatsRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_ERROR;
+        boolean serverResponded = false;
+        CompletableFuture<HttpResponse<Supplier<List<ViewStats>>>> future = null;
         try {
             String queryString = toQueryString(request);
             log.info("StatsClient / queryString: {}", queryString);
@@ -91,41 +229,136 @@ public class StatsClient {
             // полученную строку вставляем в запрос
             HttpRequest httpRequest = HttpRequest.newBuilder()
                     .uri(URI.create(statsServiceUri + "/stats" + queryString))
+                    .timeout(statsTimeout)
                     .header(HttpHeaders.ACCEPT, "application/json")
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
                     .build();
 
             log.info("StatsClient / httpRequest: {}", httpRequest.toString());
 
-            // отправляем сформированный запрос
-            HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            // HttpRequest.timeout ограничивает только ожидание заголовков, поэтому statsTimeout
+            // отсчитывается на весь ответ вместе с телом: по истечении обмен отменяется,
+            // а начатое чтение тела обрывается закрытием потока
+            long deadline = System.nanoTime() + statsTimeout.toNanos();
+            future = httpClient.sendAsync(httpRequest, info -> viewStatsSubscriber(info, deadline));
+            HttpResponse<Supplier<List<ViewStats>>> response = future.get(statsTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            log.debug("Ответ от статистического сервиса: {}", response);
 
-            if (HttpStatus.valueOf(response.statusCode()).is2xxSuccessful()) {
-                return json.readValue(response.body(), new TypeReference<>() {
-                });
+            // 4xx — ошибка запроса, сервер при этом исправен и автомат не открывается
+            if (!HttpStatus.valueOf(response.statusCode()).is2xxSuccessful()) {
+                serverResponded = response.statusCode() < 500;
+                throw new StatsUnavailableException("Статистический сервис вернул статус " + response.statusCode());
+            }
+            List<ViewStats> stats = response.body().get();
+            serverResponded = true;
+            outcome = OUTCOME_SUCCESS;
+            return stats;
+        } catch (BodyTimeoutException e) {
+            outcome = OUTCOME_TIMEOUT;
+            throw new StatsUnavailableException("Истекло время ожидания статистики по запросу: " + request, e.getCause());
+        } catch (UncheckedIOException e) {
+            throw new StatsUnavailableException("Не удается прочитать статистику просмотра по запросу: " + request, e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            outcome = OUTCOME_TIMEOUT;
+            throw new StatsUnavailableException("Истекло время ожидания статистики по запросу: " + request, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HttpTimeoutException) {
+                outcome = OUTCOME_TIMEOUT;
+                throw new StatsUnavailableException("Истекло время ожидания статистики по запросу: " + request, e.getCause());
+            }
+            throw new StatsUnavailableException("Не удается получить статистику просмотра по запросу: " + request, e.getCause());
+        } catch (InterruptedException e) {
+            if (future != null) {
+                future.cancel(true);
             }
+            Thread.currentThread().interrupt();
+            throw new StatsUnavailableException("Запрос статистики прерван", e);
+        } finally {
+            if (serverResponded) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+            sample.stop(requestTimer("stats", outcome));
+        }
+    }
 
-            log.debug("Ответ от статистического сервиса: {}", response);
-        } catch (Exception e) {
-            log.warn("Не удается получить статистику просмотра по запросу: " + request, e);
+    // Тело успешного ответа разбирается прямо из потока, без промежуточной строки, но не в потоке
+    // исполнителя HttpClient: ответ завершается с заголовками, а блокирующие распаковку и разбор
+    // выполняет вызывающий поток через Supplier. Тело ответа с ошибкой не нужно и отбрасывается
+    private HttpResponse.BodySubscriber<Supplier<List<ViewStats>>> viewStatsSubscriber(HttpResponse.ResponseInfo info,
+                                                                                      long deadline) {
+        if (!HttpStatus.valueOf(info.statusCode()).is2xxSuccessful()) {
+            return HttpResponse.BodySubscribers.replacing(null);
+        }
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                stream -> () -> readViewStats(info, stream, deadline));
+    }
+
+    // к сроку поток тела закрывается, и заблокированное на нем чтение завершается ошибкой
+    private List<ViewStats> readViewStats(HttpResponse.ResponseInfo info, InputStream stream, long deadline) {
+        CompletableFuture<Void> expiry = new CompletableFuture<Void>()
+                .completeOnTimeout(null, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        expiry.thenRun(() -> closeQuietly(stream));
+        try (InputStream raw = stream; InputStream body = decode(info, raw)) {
+            List<ViewStats> stats = viewStatsReader.readValue(body);
+            // хвост gzip и конец chunked дочитываются: закрытие недочитанного тела обрывает обмен
+            raw.transferTo(OutputStream.nullOutputStream());
+            return stats;
+        } catch (IOException e) {
+            if (expiry.isDone() && !expiry.isCancelled()) {
+                throw new BodyTimeoutException(e);
+            }
+            throw new UncheckedIOException(e);
+        } finally {
+            expiry.cancel(false);
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.debug("StatsClient / closeQuietly: {}", e.getMessage());
+        }
+    }
+
+    // чтение тела оборвано по сроку statsTimeout
+    private static class BodyTimeoutException extends UncheckedIOException {
+        BodyTimeoutException(IOException cause) {
+            super(cause);
         }
-        return Collections.emptyList();
+    }
+
+    // сервер сжимает только крупные ответы, поэтому смотрим на Content-Encoding каждого ответа
+    private static InputStream decode(HttpResponse.ResponseInfo info, InputStream body) throws IOException {
+        boolean gzip = info.headers()
+                .firstValue(HttpHeaders.CONTENT_ENCODING)
+                .map("gzip"::equalsIgnoreCase)
+                .orElse(false);
+        return gzip ? new GZIPInputStream(body) : body;
+    }
+
+    private Timer requestTimer(String operation, String outcome) {
+        return Timer.builder(REQUESTS_TIMER)
+                .description("Время обращения к сервису статистики")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     // преобразуем dto в строку запроса
     private String toQueryString(ViewStatsRequest request) {
-        String start = encode(DTF.format(request.getStart()));
-        String end = encode(DTF.format(request.getEnd()));
-
-        String queryString = String.format("?start=%s&end=%s",
-                start, end);
+        StringBuilder queryString = new StringBuilder(128)
+                .append("?start=").append(encode(DTF.format(request.getStart())))
+                .append("&end=").append(encode(DTF.format(request.getEnd())));
 
         if (request.getUris() != null && !request.getUris().isEmpty()) {
-            queryString += "&uris=" + String.join(",", request.getUris());
+            queryString.append("&uris=").append(String.join(",", request.getUris()));
         }
 
-        queryString += String.format("&unique=%b", request.isUnique());
-
-        return queryString;
+        return queryString.append("&unique=").append(request.getUnique().parameter()).toString();
     }
 
     private String encode(String value) {
@@ -0,0 +1,12 @@
+package ru.practicum.statsclient;
+
+// сервис статистики не ответил вовремя, ответил ошибкой или вызов отклонен без обращения к нему
+public class StatsUnavailableException extends RuntimeException {
+    public StatsUnavailableException(String message) {
+        super(message);
+    }
+
+    public StatsUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,172 @@
+package ru.practicum.statsclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.statsdto.EndpointHit;
+
+import java.io.UncheckedIOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class HitBatcherTest {
+    // таймер сброса не срабатывает за время теста, пачки отправляются явным flush()
+    private static final Duration NO_TIMER = Duration.ofHours(1);
+
+    private MeterRegistry meterRegistry;
+    private List<List<String>> sentBatches;
+    private HitBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sentBatches = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void dropPolicyDiscardsHitsWhenQueueIsFull() {
+        batcher = batcher(recording(), 2, OverflowPolicy.DROP, 3);
+
+        batcher.add(hit("/events/1"));
+        batcher.add(hit("/events/2"));
+        batcher.add(hit("/events/3"));
+        batcher.flush();
+
+        assertThat(sentBatches).containsExactly(List.of("/events/1", "/events/2"));
+        assertThat(count("dropped")).isEqualTo(1);
+        assertThat(count("sent")).isEqualTo(2);
+    }
+
+    @Test
+    void blockPolicyWaitsForFreeSpace() throws InterruptedException {
+        batcher = batcher(recording(), 1, OverflowPolicy.BLOCK, 3);
+        batcher.add(hit("/events/1"));
+
+        Thread producer = new Thread(() -> batcher.add(hit("/events/2")));
+        producer.start();
+        producer.join(200);
+        assertThat(producer.isAlive()).isTrue();
+
+        batcher.flush();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        batcher.flush();
+
+        assertThat(producer.isAlive()).isFalse();
+        assertThat(sentBatches).containsExactly(List.of("/events/1"), List.of("/events/2"));
+        assertThat(count("dropped")).isZero();
+    }
+
+    @Test
+    void rejectedBatchIsHalvedUntilBadHitIsIsolated() {
+        Consumer<List<EndpointHit>> sender = hits -> {
+            if (hits.stream().anyMatch(hit -> hit.getUri().equals("/bad"))) {
+                throw new HitsRejectedException("400");
+            }
+            record(hits);
+        };
+        batcher = batcher(sender, 10, OverflowPolicy.DROP, 3);
+        List.of("/events/1", "/events/2", "/bad", "/events/3").forEach(uri -> batcher.add(hit(uri)));
+
+        batcher.flush();
+
+        assertThat(sentBatches).containsExactly(List.of("/events/1", "/events/2"), List.of("/events/3"));
+        assertThat(count("sent")).isEqualTo(3);
+        assertThat(count("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void undeliveredBatchIsRetriedUpToMaxAttempts() {
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+        batcher = batcher(hits -> {
+            attempts.add(hits.size());
+            throw new HitsNotDeliveredException("503");
+        }, 10, OverflowPolicy.DROP, 3);
+        batcher.add(hit("/events/1"));
+        batcher.add(hit("/events/2"));
+
+        batcher.flush();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> count("failed") == 2);
+        assertThat(attempts).containsExactly(2, 2, 2);
+    }
+
+    @Test
+    void retryWaitsOffTheDrainLoop() {
+        List<String> order = new CopyOnWriteArrayList<>();
+        batcher = new HitBatcher(hits -> {
+            String uri = hits.get(0).getUri();
+            order.add(uri);
+            if (uri.equals("/events/1") && order.size() == 1) {
+                throw new HitsNotDeliveredException("connection refused");
+            }
+            record(hits);
+        }, 10, 1, NO_TIMER, OverflowPolicy.DROP, 3, Duration.ofMillis(300), meterRegistry);
+        batcher.add(hit("/events/1"));
+        batcher.add(hit("/events/2"));
+
+        batcher.flush();
+
+        // вторая пачка ушла сразу, не дожидаясь паузы перед повтором первой
+        assertThat(sentBatches).containsExactly(List.of("/events/2"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> sentBatches.size() == 2);
+        assertThat(order).containsExactly("/events/1", "/events/2", "/events/1");
+    }
+
+    @Test
+    void timedOutBatchIsNotRetried() {
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+        batcher = batcher(hits -> {
+            attempts.add(hits.size());
+            throw new UncheckedIOException(new HttpTimeoutException("request timed out"));
+        }, 10, OverflowPolicy.DROP, 3);
+        batcher.add(hit("/events/1"));
+
+        batcher.flush();
+
+        assertThat(attempts).containsExactly(1);
+        assertThat(count("failed")).isEqualTo(1);
+    }
+
+    private HitBatcher batcher(Consumer<List<EndpointHit>> sender, int capacity, OverflowPolicy policy,
+                               int maxAttempts) {
+        return new HitBatcher(sender, capacity, 100, NO_TIMER, policy, maxAttempts, Duration.ofMillis(10),
+                meterRegistry);
+    }
+
+    private Consumer<List<EndpointHit>> recording() {
+        return this::record;
+    }
+
+    private void record(List<EndpointHit> hits) {
+        sentBatches.add(hits.stream().map(EndpointHit::getUri).toList());
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("stats.client.hits", "result", result).count();
+    }
+
+    private static EndpointHit hit(String uri) {
+        return EndpointHit.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("10.0.0.1")
+                .timestamp("2024-05-01 10:00:00")
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.statsclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.statsdto.UniqueMode;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsdto.ViewStatsRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Срок запроса статистики покрывает весь ответ: сервер, отдавший заголовки и замолчавший
+// посреди тела, не держит вызывающий поток дольше stats-server.stats.timeout
+class StatsClientTimeoutTest {
+    private static final Duration TIMEOUT = Duration.ofMillis(300);
+    private static final String BODY = "[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"hits\":7}]";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private StatsClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.start();
+        client = new StatsClient("ewm-main-service", "http://localhost:" + server.getAddress().getPort(),
+                100, 100, Duration.ofSeconds(1), OverflowPolicy.DROP, Duration.ofSeconds(1), 1, Duration.ZERO,
+                TIMEOUT, 20, 5, Duration.ofSeconds(30), new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void stalledBodyFailsWithinTimeout() {
+        server.createContext("/stats", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write("[{\"app\":".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            await();
+            exchange.close();
+        });
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client.getStats(request()))
+                .isInstanceOf(StatsUnavailableException.class)
+                .hasMessageContaining("Истекло время ожидания");
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(TIMEOUT.multipliedBy(5));
+    }
+
+    @Test
+    void readsPlainAndGzipBodies() {
+        server.createContext("/stats", exchange -> {
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            if (exchange.getRequestURI().getQuery().contains("/events/gzip")) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                    out.write(body);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+
+        List<ViewStats> expected = List.of(new ViewStats("ewm-main-service", "/events/1", 7L));
+        assertThat(client.getStats(request())).isEqualTo(expected);
+        assertThat(client.getStats(new ViewStatsRequest(LocalDateTime.now().minusDays(1), LocalDateTime.now(),
+                List.of("/events/gzip"), UniqueMode.NONE))).isEqualTo(expected);
+    }
+
+    @Test
+    void errorStatusIsReportedWithoutReadingBody() {
+        server.createContext("/stats", exchange -> {
+            byte[] body = "{\"error\":\"boom\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(500, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        assertThatThrownBy(() -> client.getStats(request()))
+                .isInstanceOf(StatsUnavailableException.class)
+                .hasMessageContaining("500");
+    }
+
+    private static ViewStatsRequest request() {
+        return new ViewStatsRequest(LocalDateTime.now().minusDays(1), LocalDateTime.now(), List.of("/events/1"), UniqueMode.NONE);
+    }
+
+    private void await() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
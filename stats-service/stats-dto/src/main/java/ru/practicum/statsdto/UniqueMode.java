@@ -0,0 +1,18 @@
+package ru.practicum.statsdto;
+
+// что считать в ответе /stats — значение параметра unique
+public enum UniqueMode {
+    NONE("false"),    // все хиты
+    EXACT("true"),    // точное число уникальных ip по сырым хитам
+    APPROX("approx"); // оценка числа уникальных ip по скетчам HyperLogLog
+
+    private final String parameter;
+
+    UniqueMode(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public String parameter() {
+        return parameter;
+    }
+}
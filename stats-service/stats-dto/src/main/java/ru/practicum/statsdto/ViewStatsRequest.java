@@ -15,5 +15,6 @@ public class ViewStatsRequest {
     LocalDateTime start;
     LocalDateTime end;
     List<String> uris;
-    boolean unique;
+    @Builder.Default
+    UniqueMode unique = UniqueMode.NONE;
 }
\ No newline at end of file
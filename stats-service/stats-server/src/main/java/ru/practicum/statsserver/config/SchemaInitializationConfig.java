@@ -0,0 +1,27 @@
+package ru.practicum.statsserver.config;
+
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.statsserver.repository.HitSchemaMigration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SchemaInitializationConfig {
+
+    // замещает инициализатор Spring Boot: прежняя схема хитов переводится до schema.sql,
+    // который уже ссылается на новые столбцы
+    @Bean
+    public SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(
+            DataSource dataSource, SqlInitializationProperties properties) {
+        return new SqlDataSourceScriptDatabaseInitializer(dataSource, properties) {
+            @Override
+            public void afterPropertiesSet() throws Exception {
+                new HitSchemaMigration(dataSource).migrate();
+                super.afterPropertiesSet();
+            }
+        };
+    }
+}
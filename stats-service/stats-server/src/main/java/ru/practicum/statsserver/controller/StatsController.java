@@ -7,7 +7,9 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.statsdto.EndpointHit;
 import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.UniqueMode;
 import ru.practicum.statsserver.service.StatsService;
+import ru.practicum.statsserver.service.TrendingService;
 
 import java.util.List;
 
@@ -16,9 +18,11 @@ import java.util.List;
 @Validated
 public class StatsController {
     private final StatsService statsService;
+    private final TrendingService trendingService;
 
-    public StatsController(StatsService statsService) {
+    public StatsController(StatsService statsService, TrendingService trendingService) {
         this.statsService = statsService;
+        this.trendingService = trendingService;
     }
 
     @PostMapping("/hit")
@@ -27,13 +31,28 @@ public class StatsController {
         statsService.saveHit(hit);
     }
 
+    @PostMapping("/hit/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void hitBatch(@RequestBody List<@Valid EndpointHit> hits) {
+        statsService.saveHits(hits);
+    }
+
     @GetMapping("/stats")
     public List<ViewStats> stats(
             @RequestParam String start,
             @RequestParam String end,
             @RequestParam(required = false) List<String> uris,
-            @RequestParam(required = false, defaultValue = "false") boolean unique
+            @RequestParam(required = false, defaultValue = "false") String unique
+    ) {
+        return statsService.getStats(start, end, uris, UniqueMode.parse(unique));
+    }
+
+    // самые просматриваемые uri за скользящее окно 5m, 1h или 1d; счетчики приближенные
+    @GetMapping("/stats/top")
+    public List<ViewStats> top(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "10") int limit
     ) {
-        return statsService.getStats(start, end, uris, unique);
+        return trendingService.getTop(window, limit);
     }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.statsserver.model;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+public record BucketKey(String app, String uri, BucketUnit unit, LocalDateTime bucketStart) {
+
+    // порядок первичных ключей endpoint_hits_rollup и endpoint_hits_hll — в нем берутся блокировки строк
+    public static final Comparator<BucketKey> LOCK_ORDER = Comparator
+            .comparing(BucketKey::unit)
+            .thenComparing(BucketKey::uri)
+            .thenComparing(BucketKey::bucketStart)
+            .thenComparing(BucketKey::app);
+}
@@ -0,0 +1,28 @@
+package ru.practicum.statsserver.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// размер корзины, по которой агрегируются хиты
+public enum BucketUnit {
+    DAY(ChronoUnit.DAYS),
+    HOUR(ChronoUnit.HOURS),
+    MINUTE(ChronoUnit.MINUTES);
+
+    private final ChronoUnit chronoUnit;
+
+    BucketUnit(ChronoUnit chronoUnit) {
+        this.chronoUnit = chronoUnit;
+    }
+
+    // начало корзины, в которую попадает момент времени
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(chronoUnit);
+    }
+
+    // ближайшая граница корзины не раньше момента времени
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plus(1, chronoUnit);
+    }
+}
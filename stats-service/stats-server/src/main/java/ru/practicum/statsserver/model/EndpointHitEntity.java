@@ -1,7 +1,6 @@
 package ru.practicum.statsserver.model;
 
 
-import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,24 +8,18 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
-@Entity
-@Table(name = "endpoint_hits")
+// хит в сервисе; в endpoint_hits app и uri хранятся ключами словарей, ip — байтами (см. StatsRepository)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class EndpointHitEntity {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
     private String app;
 
     private String uri;
 
     private String ip;
 
-    @Column(name = "timestamp")
     private LocalDateTime timestamp;
 }
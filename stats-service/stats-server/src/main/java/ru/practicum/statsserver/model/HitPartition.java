@@ -0,0 +1,11 @@
+package ru.practicum.statsserver.model;
+
+import java.time.LocalDateTime;
+
+// секция endpoint_hits с хитами из полуинтервала [from, to)
+public record HitPartition(String name, LocalDateTime from, LocalDateTime to) {
+
+    public boolean overlaps(HitPartition other) {
+        return from.isBefore(other.to) && other.from.isBefore(to);
+    }
+}
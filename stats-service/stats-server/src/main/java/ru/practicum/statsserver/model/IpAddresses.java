@@ -0,0 +1,148 @@
+package ru.practicum.statsserver.model;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Адрес хранится байтами: метка семейства и 4 байта IPv4 или 16 байт IPv6. Разбирается только
+// текстовая запись адреса — InetAddress.getByName для произвольной строки пошел бы в DNS.
+// Строка, не являющаяся адресом, хранится с меткой TEXT в UTF-8
+public final class IpAddresses {
+    private static final int IPV4 = 4;
+    private static final int IPV6 = 16;
+    private static final byte FAMILY_IPV4 = 4;
+    private static final byte FAMILY_IPV6 = 6;
+    private static final byte FAMILY_TEXT = 0;
+
+    private IpAddresses() {
+    }
+
+    public static byte[] encode(String ip) {
+        byte[] address = ip.indexOf(':') >= 0 ? parseV6(ip) : parseV4(ip);
+        if (address == null) {
+            return tagged(FAMILY_TEXT, ip.getBytes(StandardCharsets.UTF_8));
+        }
+        if (isV4Mapped(address)) {
+            // ::ffff:1.2.3.4 и 1.2.3.4 — один посетитель
+            address = Arrays.copyOfRange(address, IPV6 - IPV4, IPV6);
+        }
+        return tagged(address.length == IPV4 ? FAMILY_IPV4 : FAMILY_IPV6, address);
+    }
+
+    public static String decode(byte[] bytes) {
+        byte[] value = Arrays.copyOfRange(bytes, 1, bytes.length);
+        if (bytes[0] == FAMILY_TEXT) {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+        try {
+            return InetAddress.getByAddress(value).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Неверная длина адреса: " + value.length, e);
+        }
+    }
+
+    // одна запись для одного адреса: ::1 и 0:0:0:0:0:0:0:1 считаются одним посетителем
+    public static String canonical(String ip) {
+        return decode(encode(ip));
+    }
+
+    private static boolean isV4Mapped(byte[] address) {
+        if (address.length != IPV6 || address[10] != (byte) 0xff || address[11] != (byte) 0xff) {
+            return false;
+        }
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] tagged(byte family, byte[] value) {
+        byte[] bytes = new byte[value.length + 1];
+        bytes[0] = family;
+        System.arraycopy(value, 0, bytes, 1, value.length);
+        return bytes;
+    }
+
+    private static byte[] parseV4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != IPV4) {
+            return null;
+        }
+        byte[] address = new byte[IPV4];
+        for (int i = 0; i < IPV4; i++) {
+            int octet = parseNumber(parts[i], 10, 3);
+            if (octet < 0 || octet > 255) {
+                return null;
+            }
+            address[i] = (byte) octet;
+        }
+        return address;
+    }
+
+    private static byte[] parseV6(String ip) {
+        int gap = ip.indexOf("::");
+        if (gap >= 0 && ip.indexOf("::", gap + 1) >= 0) {
+            return null;
+        }
+        byte[] head = gap >= 0 ? parseGroups(ip.substring(0, gap)) : parseGroups(ip);
+        byte[] tail = gap >= 0 ? parseGroups(ip.substring(gap + 2)) : new byte[0];
+        if (head == null || tail == null) {
+            return null;
+        }
+        int present = head.length + tail.length;
+        if (gap < 0 ? present != IPV6 : present > IPV6 - 2) {
+            return null;
+        }
+        byte[] address = new byte[IPV6];
+        System.arraycopy(head, 0, address, 0, head.length);
+        System.arraycopy(tail, 0, address, IPV6 - tail.length, tail.length);
+        return address;
+    }
+
+    // группы по 16 бит через двоеточие; последней может быть IPv4-запись
+    private static byte[] parseGroups(String groups) {
+        if (groups.isEmpty()) {
+            return new byte[0];
+        }
+        String[] parts = groups.split(":", -1);
+        byte[] bytes = new byte[IPV6 + IPV4];
+        int length = 0;
+        for (int i = 0; i < parts.length; i++) {
+            if (i == parts.length - 1 && parts[i].indexOf('.') >= 0) {
+                byte[] v4 = parseV4(parts[i]);
+                if (v4 == null) {
+                    return null;
+                }
+                System.arraycopy(v4, 0, bytes, length, IPV4);
+                length += IPV4;
+                continue;
+            }
+            int group = parseNumber(parts[i], 16, 4);
+            if (group < 0 || length + 2 > IPV6) {
+                return null;
+            }
+            bytes[length++] = (byte) (group >>> 8);
+            bytes[length++] = (byte) group;
+        }
+        return length > IPV6 ? null : Arrays.copyOf(bytes, length);
+    }
+
+    // -1, если строка пуста, длиннее maxDigits или содержит не цифры
+    private static int parseNumber(String value, int radix, int maxDigits) {
+        if (value.isEmpty() || value.length() > maxDigits) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            int digit = Character.digit(value.charAt(i), radix);
+            if (digit < 0) {
+                return -1;
+            }
+            result = result * radix + digit;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.statsserver.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+// размер секции таблицы сырых хитов; границы секции зашиты в ее имя: endpoint_hits_p202405, endpoint_hits_p20240517
+public enum PartitionUnit {
+    DAY("day", "yyyyMMdd", 8),
+    MONTH("month", "yyyyMM", 6);
+
+    public static final String PREFIX = "endpoint_hits_p";
+
+    private final String sqlUnit;
+    private final DateTimeFormatter suffixFormat;
+    private final int suffixLength;
+
+    PartitionUnit(String sqlUnit, String suffixPattern, int suffixLength) {
+        this.sqlUnit = sqlUnit;
+        this.suffixFormat = DateTimeFormatter.ofPattern(suffixPattern);
+        this.suffixLength = suffixLength;
+    }
+
+    // единица для date_trunc
+    public String sqlUnit() {
+        return sqlUnit;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+        return this == MONTH ? day.withDayOfMonth(1) : day;
+    }
+
+    public LocalDateTime next(LocalDateTime start) {
+        return this == MONTH ? start.plusMonths(1) : start.plusDays(1);
+    }
+
+    // секция, в которую попадает момент времени
+    public HitPartition partition(LocalDateTime time) {
+        LocalDateTime from = floor(time);
+        return new HitPartition(PREFIX + suffixFormat.format(from), from, next(from));
+    }
+
+    // секции, созданные при другом значении stats.partitions.unit, тоже распознаются — по длине суффикса
+    public static Optional<HitPartition> parse(String name) {
+        if (!name.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        String suffix = name.substring(PREFIX.length());
+        for (PartitionUnit unit : values()) {
+            if (suffix.length() == unit.suffixLength) {
+                try {
+                    // в шаблоне месяца нет дня — добавляем первое число
+                    String date = unit == MONTH ? suffix + "01" : suffix;
+                    return Optional.of(unit.partition(LocalDate.parse(date, DateTimeFormatter.BASIC_ISO_DATE)
+                            .atStartOfDay()));
+                } catch (DateTimeParseException e) {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
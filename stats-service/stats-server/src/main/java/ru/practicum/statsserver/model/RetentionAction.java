@@ -0,0 +1,9 @@
+package ru.practicum.statsserver.model;
+
+// что делать с секцией хитов старше срока хранения
+public enum RetentionAction {
+    // удалить вместе с данными
+    DROP,
+    // отсоединить и переименовать в endpoint_hits_archive_*: таблица остается в БД для выгрузки в архив
+    DETACH
+}
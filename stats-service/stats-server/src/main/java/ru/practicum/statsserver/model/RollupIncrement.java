@@ -0,0 +1,4 @@
+package ru.practicum.statsserver.model;
+
+public record RollupIncrement(BucketKey key, long hits) {
+}
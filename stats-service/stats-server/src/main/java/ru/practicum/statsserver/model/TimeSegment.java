@@ -0,0 +1,11 @@
+package ru.practicum.statsserver.model;
+
+import java.time.LocalDateTime;
+
+// полуинтервал [from, to); unit == null — читать сырые хиты
+public record TimeSegment(BucketUnit unit, LocalDateTime from, LocalDateTime to) {
+
+    public boolean isRaw() {
+        return unit == null;
+    }
+}
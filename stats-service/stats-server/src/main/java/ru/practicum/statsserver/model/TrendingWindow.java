@@ -0,0 +1,39 @@
+package ru.practicum.statsserver.model;
+
+import ru.practicum.statsserver.exception.ValidationException;
+
+import java.time.Duration;
+
+// окно для /stats/top: окно скользит шагами размера slice, старейший шаг выпадает целиком
+public enum TrendingWindow {
+    MINUTES_5("5m", Duration.ofMinutes(5), Duration.ofSeconds(10)),
+    HOUR("1h", Duration.ofHours(1), Duration.ofMinutes(1)),
+    DAY("1d", Duration.ofDays(1), Duration.ofMinutes(30));
+
+    private final String value;
+    private final Duration length;
+    private final Duration slice;
+
+    TrendingWindow(String value, Duration length, Duration slice) {
+        this.value = value;
+        this.length = length;
+        this.slice = slice;
+    }
+
+    public long sliceSeconds() {
+        return slice.toSeconds();
+    }
+
+    public int slices() {
+        return (int) (length.toSeconds() / slice.toSeconds());
+    }
+
+    public static TrendingWindow parse(String value) {
+        for (TrendingWindow window : values()) {
+            if (window.value.equalsIgnoreCase(value)) {
+                return window;
+            }
+        }
+        throw new ValidationException("Недопустимое окно: " + value + ", допустимы 5m, 1h, 1d");
+    }
+}
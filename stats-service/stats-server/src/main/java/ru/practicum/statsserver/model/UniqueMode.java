@@ -0,0 +1,23 @@
+package ru.practicum.statsserver.model;
+
+import ru.practicum.statsserver.exception.ValidationException;
+
+// режим подсчета посещений для параметра unique
+public enum UniqueMode {
+    NONE,   // unique=false — все хиты
+    EXACT,  // unique=true — точное число уникальных ip
+    APPROX; // unique=approx — оценка по скетчам HyperLogLog, ошибка около 1.6%
+
+    public static UniqueMode parse(String value) {
+        if (value == null || value.isBlank() || "false".equalsIgnoreCase(value)) {
+            return NONE;
+        }
+        if ("true".equalsIgnoreCase(value)) {
+            return EXACT;
+        }
+        if ("approx".equalsIgnoreCase(value)) {
+            return APPROX;
+        }
+        throw new ValidationException("Недопустимое значение unique: " + value);
+    }
+}
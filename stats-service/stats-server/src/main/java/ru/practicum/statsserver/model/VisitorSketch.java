@@ -0,0 +1,5 @@
+package ru.practicum.statsserver.model;
+
+// уникальные ip одного app и uri за диапазон — сериализованный скетч HyperLogLog (см. HyperLogLog.toBytes)
+public record VisitorSketch(String app, String uri, byte[] sketch) {
+}
@@ -0,0 +1,115 @@
+package ru.practicum.statsserver.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Словари app и uri: в таблице хитов хранятся их целочисленные ключи.
+// Ключи не меняются, поэтому кэшируются в памяти, и на пути записи в БД идут только новые строки.
+// Новые строки добавляются в транзакции пачки хитов (второе соединение из пула ей не нужно),
+// а в кэш ключи попадают только после ее коммита: при откате строки словаря откатываются вместе с ней
+@Repository
+public class DictionaryRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Dictionary apps;
+    private final Dictionary uris;
+
+    private static final class Dictionary {
+        private final String table;
+        private final String column;
+        private final Cache<String, Integer> ids;
+
+        private Dictionary(String table, String column, long cacheSize) {
+            this.table = table;
+            this.column = column;
+            this.ids = Caffeine.newBuilder().maximumSize(cacheSize).build();
+        }
+    }
+
+    public DictionaryRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                @Value("${stats.dictionary.cache-size:100000}") long cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.apps = new Dictionary("endpoint_apps", "name", cacheSize);
+        this.uris = new Dictionary("endpoint_uris", "uri", cacheSize);
+    }
+
+    // ключи для записи хитов; недостающие app добавляются в словарь
+    public Map<String, Integer> appIds(Collection<String> names) {
+        return ids(apps, names, true);
+    }
+
+    public Map<String, Integer> uriIds(Collection<String> values) {
+        return ids(uris, values, true);
+    }
+
+    // ключи для фильтра запроса: uri, которых нет в словаре, не было и в хитах
+    public List<Integer> findUriIds(Collection<String> values) {
+        return List.copyOf(ids(uris, values, false).values());
+    }
+
+    private Map<String, Integer> ids(Dictionary dictionary, Collection<String> values, boolean create) {
+        Map<String, Integer> result = new HashMap<>(dictionary.ids.getAllPresent(values));
+        Set<String> missing = new LinkedHashSet<>(values);
+        missing.removeAll(result.keySet());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Integer> loaded = load(dictionary, missing);
+        missing.removeAll(loaded.keySet());
+        if (create && !missing.isEmpty()) {
+            insert(dictionary, missing);
+            loaded.putAll(load(dictionary, missing));
+        }
+        cache(dictionary, loaded);
+        result.putAll(loaded);
+        return result;
+    }
+
+    // в транзакции прочитанное может оказаться ее же незафиксированной строкой — кэшируем после коммита
+    private void cache(Dictionary dictionary, Map<String, Integer> ids) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dictionary.ids.putAll(ids);
+                }
+            });
+        } else {
+            dictionary.ids.putAll(ids);
+        }
+    }
+
+    // Параллельная пачка могла добавить ту же строку — конфликт не ошибка: если она еще не зафиксирована,
+    // INSERT ждет ее завершения. Строки вставляются в порядке сортировки, поэтому две пачки
+    // с общими новыми значениями ждут друг друга в одном порядке и не взаимоблокируются
+    private void insert(Dictionary dictionary, Collection<String> values) {
+        String sql = "INSERT INTO " + dictionary.table + " (" + dictionary.column + ") VALUES (?) ON CONFLICT DO NOTHING";
+        jdbcTemplate.getJdbcOperations().batchUpdate(sql, List.copyOf(new TreeSet<>(values)), values.size(),
+                (ps, value) -> ps.setString(1, value));
+    }
+
+    private Map<String, Integer> load(Dictionary dictionary, Collection<String> values) {
+        String sql = "SELECT id, " + dictionary.column + " FROM " + dictionary.table +
+                " WHERE " + dictionary.column + " IN (:values)";
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query(sql, new MapSqlParameterSource("values", values),
+                rs -> {
+                    ids.put(rs.getString(dictionary.column), rs.getInt("id"));
+                });
+        return ids;
+    }
+}
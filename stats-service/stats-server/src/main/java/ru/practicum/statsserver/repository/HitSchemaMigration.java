@@ -0,0 +1,110 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.statsserver.model.IpAddresses;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Перевод endpoint_hits прежних версий (строковые app, uri и ip) на ключи словарей и байты адреса.
+// Выполняется до schema.sql, поэтому работает прямо с DataSource. Таблица меняется на месте:
+// ALTER TABLE на секционированной таблице распространяется на все секции.
+// Строки переводятся пачками по диапазонам id, каждая пачка — своя транзакция: большая таблица
+// не держится одной транзакцией на весь перевод, а прерванный перевод при следующем старте
+// продолжается с непереведенных строк. Прежние столбцы удаляются последним коротким шагом.
+// На новой БД и на H2 (имена в information_schema там в верхнем регистре) ничего не делает
+@Slf4j
+public class HitSchemaMigration {
+    private static final int IP_BATCH_SIZE = 1000;
+    private static final long ROW_BATCH_SIZE = 50_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+
+    public HitSchemaMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    public void migrate() {
+        Integer legacyColumns = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = 'endpoint_hits' AND column_name = 'app'", Integer.class);
+        if (legacyColumns == null || legacyColumns == 0) {
+            return;
+        }
+
+        log.info("Таблица endpoint_hits переводится на словари app и uri и двоичные ip");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-dictionaries.sql")).execute(dataSource);
+        jdbc.update("INSERT INTO endpoint_apps (name) SELECT DISTINCT app FROM endpoint_hits " +
+                "ON CONFLICT (name) DO NOTHING");
+        jdbc.update("INSERT INTO endpoint_uris (uri) SELECT DISTINCT uri FROM endpoint_hits " +
+                "ON CONFLICT (uri) DO NOTHING");
+        fillLegacyIps();
+
+        // новые столбцы без значения по умолчанию добавляются без перезаписи таблицы
+        jdbc.execute("ALTER TABLE endpoint_hits ADD COLUMN IF NOT EXISTS app_id INTEGER, " +
+                "ADD COLUMN IF NOT EXISTS uri_id INTEGER, ADD COLUMN IF NOT EXISTS address BYTEA");
+        long rows = convertRows();
+
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            // индексы по прежним столбцам удаляются вместе с ними, idx_uri заново создаст schema.sql
+            jdbc.execute("ALTER TABLE endpoint_hits DROP COLUMN app, DROP COLUMN uri, DROP COLUMN ip");
+            jdbc.execute("ALTER TABLE endpoint_hits RENAME COLUMN address TO ip");
+            // проверка NOT NULL читает таблицу, но ничего в ней не переписывает
+            jdbc.execute("ALTER TABLE endpoint_hits ALTER COLUMN app_id SET NOT NULL, " +
+                    "ALTER COLUMN uri_id SET NOT NULL, ALTER COLUMN ip SET NOT NULL");
+            jdbc.execute("DROP TABLE legacy_ips");
+        });
+        log.info("Переведено {} хитов; место прежних столбцов освободит VACUUM FULL endpoint_hits", rows);
+    }
+
+    // адреса разбираются тем же кодом, что и на пути записи; таблица обычная, а не временная,
+    // чтобы пережить транзакции пачек и прерванный перевод
+    private void fillLegacyIps() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS legacy_ips (ip VARCHAR(45) PRIMARY KEY, address BYTEA NOT NULL)");
+        List<String> batch = new ArrayList<>(IP_BATCH_SIZE);
+        jdbc.query("SELECT DISTINCT h.ip FROM endpoint_hits h " +
+                "WHERE NOT EXISTS (SELECT 1 FROM legacy_ips i WHERE i.ip = h.ip)", rs -> {
+            batch.add(rs.getString("ip"));
+            if (batch.size() == IP_BATCH_SIZE) {
+                insertIps(batch);
+            }
+        });
+        insertIps(batch);
+    }
+
+    // строки, переведенные до прерывания, пропускаются по app_id IS NOT NULL
+    private long convertRows() {
+        Map<String, Object> range = jdbc.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM endpoint_hits");
+        if (range.get("min_id") == null) {
+            return 0;
+        }
+        long minId = ((Number) range.get("min_id")).longValue();
+        long maxId = ((Number) range.get("max_id")).longValue();
+        long rows = 0;
+        for (long from = minId; from <= maxId; from += ROW_BATCH_SIZE) {
+            rows += jdbc.update("UPDATE endpoint_hits h SET app_id = a.id, uri_id = u.id, address = i.address " +
+                    "FROM endpoint_apps a, endpoint_uris u, legacy_ips i " +
+                    "WHERE h.id >= ? AND h.id < ? AND h.app_id IS NULL " +
+                    "AND a.name = h.app AND u.uri = h.uri AND i.ip = h.ip", from, from + ROW_BATCH_SIZE);
+            log.info("Переведены хиты с id до {} из {}", Math.min(from + ROW_BATCH_SIZE - 1, maxId), maxId);
+        }
+        return rows;
+    }
+
+    private void insertIps(List<String> ips) {
+        jdbc.batchUpdate("INSERT INTO legacy_ips (ip, address) VALUES (?, ?) ON CONFLICT (ip) DO NOTHING",
+                ips, ips.size(), (ps, ip) -> {
+                    ps.setString(1, ip);
+                    ps.setBytes(2, IpAddresses.encode(ip));
+                });
+        ips.clear();
+    }
+}
@@ -0,0 +1,207 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.statsserver.model.HitPartition;
+import ru.practicum.statsserver.model.PartitionUnit;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+// Секции таблицы сырых хитов (только PostgreSQL). Хиты вне созданных секций попадают в endpoint_hits_default,
+// оттуда HitPartitionManager переносит их в секции. Все изменения секций идут под advisory-блокировкой,
+// чтобы несколько экземпляров сервера не обслуживали таблицу одновременно
+@Repository
+@RequiredArgsConstructor
+public class PartitionRepository {
+    private static final String DEFAULT_PARTITION = "endpoint_hits_default";
+    private static final String LEGACY_TABLE = "endpoint_hits_legacy";
+    private static final String ARCHIVE_PREFIX = "endpoint_hits_archive_";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String LOCK = "SELECT pg_advisory_xact_lock(hashtext('endpoint_hits_partitions'))";
+    private static final String MOVE_FROM_DEFAULT =
+            "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ? " +
+                    "RETURNING id, app_id, uri_id, ip, timestamp) " +
+                    "INSERT INTO %s (id, app_id, uri_id, ip, timestamp) " +
+                    "SELECT id, app_id, uri_id, ip, timestamp FROM moved";
+    private static final String MOVE_FROM_LEGACY =
+            "WITH moved AS (DELETE FROM " + LEGACY_TABLE + " WHERE id >= ? AND id < ? " +
+                    "RETURNING id, app_id, uri_id, ip, timestamp) " +
+                    "INSERT INTO endpoint_hits (id, app_id, uri_id, ip, timestamp) " +
+                    "SELECT id, app_id, uri_id, ip, timestamp FROM moved";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.getJdbcOperations().queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('endpoint_hits')", String.class);
+        return kinds.contains("p");
+    }
+
+    // Преобразование обычной таблицы из schema.sql в секционированную по timestamp идет в три шага, каждый
+    // в своей транзакции: startConversion переименовывает ее в endpoint_hits_legacy и создает на ее месте
+    // секционированную, moveLegacyHits пачками по диапазонам id переносит хиты в секции, finishConversion
+    // удаляет опустевшую старую таблицу. Прерванное преобразование продолжается при следующем старте
+    // с оставшихся в endpoint_hits_legacy хитов. Срок хранения применяет уже HitPartitionManager, и только если он задан
+    @Transactional
+    public void startConversion() {
+        JdbcOperations jdbc = jdbcTemplate.getJdbcOperations();
+        jdbc.execute(LOCK);
+        if (isPartitioned()) {
+            return;
+        }
+
+        // освобождаем имена таблицы, ограничения, индексов и последовательности identity
+        jdbc.execute("ALTER TABLE endpoint_hits RENAME TO " + LEGACY_TABLE);
+        jdbc.execute("ALTER TABLE " + LEGACY_TABLE + " RENAME CONSTRAINT pk_endpoint_hits TO pk_endpoint_hits_legacy");
+        jdbc.execute("ALTER INDEX IF EXISTS idx_timestamp RENAME TO idx_timestamp_legacy");
+        jdbc.execute("ALTER INDEX IF EXISTS idx_uri RENAME TO idx_uri_legacy");
+        jdbc.execute("ALTER SEQUENCE IF EXISTS endpoint_hits_id_seq RENAME TO endpoint_hits_legacy_id_seq");
+
+        // ключ секционирования обязан входить в первичный ключ
+        jdbc.execute("CREATE TABLE endpoint_hits (" +
+                "id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL, " +
+                "app_id INTEGER NOT NULL, " +
+                "uri_id INTEGER NOT NULL, " +
+                "ip BYTEA NOT NULL, " +
+                "timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL, " +
+                "CONSTRAINT pk_endpoint_hits PRIMARY KEY (id, timestamp)" +
+                ") PARTITION BY RANGE (timestamp)");
+        jdbc.execute("CREATE INDEX idx_timestamp ON endpoint_hits (timestamp)");
+        jdbc.execute("CREATE INDEX idx_uri ON endpoint_hits (uri_id)");
+        jdbc.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF endpoint_hits DEFAULT");
+
+        // новые хиты идут уже в новую таблицу, их id не пересекаются с переносимыми
+        Long nextId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + LEGACY_TABLE, Long.class);
+        jdbc.execute("ALTER TABLE endpoint_hits ALTER COLUMN id RESTART WITH " + nextId);
+    }
+
+    // границы id еще не перенесенных хитов; пусто, если переносить нечего
+    public Optional<Long> findLegacyMinId() {
+        return legacyId("MIN");
+    }
+
+    public Optional<Long> findLegacyMaxId() {
+        return legacyId("MAX");
+    }
+
+    // Переносит хиты с id в [fromId, toId). Секции для них создаются до переноса, чтобы хиты сразу легли
+    // на место, а не в секцию по умолчанию. Перенесенное удаляется из старой таблицы в той же транзакции,
+    // поэтому повтор пачки после прерывания ничего не задваивает
+    @Transactional
+    public int moveLegacyHits(PartitionUnit unit, long fromId, long toId) {
+        JdbcOperations jdbc = jdbcTemplate.getJdbcOperations();
+        jdbc.execute(LOCK);
+        if (!exists(LEGACY_TABLE)) {
+            return 0;
+        }
+
+        List<HitPartition> existing = findPartitionNames().stream()
+                .map(PartitionUnit::parse)
+                .flatMap(Optional::stream)
+                .toList();
+        jdbc.queryForList("SELECT DISTINCT date_trunc('" + unit.sqlUnit() + "', timestamp) FROM " + LEGACY_TABLE +
+                        " WHERE id >= ? AND id < ?", Timestamp.class, fromId, toId).stream()
+                .map(start -> unit.partition(start.toLocalDateTime()))
+                // секции другого размера, созданные до смены stats.partitions.unit, остаются как есть
+                .filter(partition -> existing.stream().noneMatch(partition::overlaps))
+                .forEach(this::attachNew);
+        return jdbc.update(MOVE_FROM_LEGACY, fromId, toId);
+    }
+
+    // старая таблица удаляется, только когда из нее перенесены все хиты
+    @Transactional
+    public boolean finishConversion() {
+        JdbcOperations jdbc = jdbcTemplate.getJdbcOperations();
+        jdbc.execute(LOCK);
+        if (!exists(LEGACY_TABLE)) {
+            return true;
+        }
+        if (Boolean.TRUE.equals(jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM " + LEGACY_TABLE + ")",
+                Boolean.class))) {
+            return false;
+        }
+        jdbc.execute("DROP TABLE " + LEGACY_TABLE);
+        return true;
+    }
+
+    // имена секций endpoint_hits, кроме секции по умолчанию
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.getJdbcOperations().queryForList("SELECT c.relname::text FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'endpoint_hits'::regclass AND c.relname <> '" + DEFAULT_PARTITION + "'", String.class);
+    }
+
+    // начала секций, хиты которых лежат в секции по умолчанию
+    public List<LocalDateTime> findDefaultPartitionStarts(PartitionUnit unit) {
+        return jdbcTemplate.getJdbcOperations().queryForList("SELECT DISTINCT date_trunc('" + unit.sqlUnit() +
+                        "', timestamp) FROM " + DEFAULT_PARTITION, Timestamp.class).stream()
+                .map(Timestamp::toLocalDateTime)
+                .toList();
+    }
+
+    // Секция создается отдельной таблицей и присоединяется после переноса в нее хитов из секции по умолчанию:
+    // CREATE TABLE ... PARTITION OF упал бы, если такие хиты уже есть
+    @Transactional
+    public boolean createPartition(HitPartition partition) {
+        jdbcTemplate.getJdbcOperations().execute(LOCK);
+        if (exists(partition.name())) {
+            return false;
+        }
+        attachNew(partition);
+        return true;
+    }
+
+    @Transactional
+    public void dropPartition(HitPartition partition) {
+        JdbcOperations jdbc = jdbcTemplate.getJdbcOperations();
+        jdbc.execute(LOCK);
+        if (exists(partition.name())) {
+            jdbc.execute("DROP TABLE " + partition.name());
+        }
+    }
+
+    // отсоединенная секция остается обычной таблицей endpoint_hits_archive_*, запросы статистики ее не видят
+    @Transactional
+    public String detachPartition(HitPartition partition) {
+        JdbcOperations jdbc = jdbcTemplate.getJdbcOperations();
+        jdbc.execute(LOCK);
+        String archive = ARCHIVE_PREFIX + partition.name().substring(PartitionUnit.PREFIX.length());
+        if (exists(partition.name())) {
+            jdbc.execute("ALTER TABLE endpoint_hits DETACH PARTITION " + partition.name());
+            jdbc.execute("ALTER TABLE " + partition.name() + " RENAME TO " + archive);
+        }
+        return archive;
+    }
+
+    private void attachNew(HitPartition partition) {
+        JdbcOperations jdbc = jdbcTemplate.getJdbcOperations();
+        // без INCLUDING IDENTITY: id назначает родительская таблица
+        jdbc.execute("CREATE TABLE " + partition.name() + " (LIKE endpoint_hits INCLUDING DEFAULTS)");
+        jdbc.update(MOVE_FROM_DEFAULT.formatted(partition.name()),
+                Timestamp.valueOf(partition.from()), Timestamp.valueOf(partition.to()));
+        jdbc.execute("ALTER TABLE endpoint_hits ATTACH PARTITION " + partition.name() +
+                " FOR VALUES FROM ('" + BOUND_FORMAT.format(partition.from()) + "')" +
+                " TO ('" + BOUND_FORMAT.format(partition.to()) + "')");
+    }
+
+    private Optional<Long> legacyId(String aggregate) {
+        if (!exists(LEGACY_TABLE)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(jdbcTemplate.getJdbcOperations()
+                .queryForObject("SELECT " + aggregate + "(id) FROM " + LEGACY_TABLE, Long.class));
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.getJdbcOperations()
+                .queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+}
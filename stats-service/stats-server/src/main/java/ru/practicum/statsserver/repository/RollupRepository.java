@@ -0,0 +1,88 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.RollupIncrement;
+import ru.practicum.statsserver.model.TimeSegment;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Счетчики хитов по app, uri и корзинам времени (минута, час, день)
+@Repository
+@RequiredArgsConstructor
+public class RollupRepository {
+    private static final String UPSERT_ROLLUP =
+            "INSERT INTO endpoint_hits_rollup (app, uri, bucket_unit, bucket_start, hits) VALUES (?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (bucket_unit, uri, bucket_start, app) " +
+                    "DO UPDATE SET hits = endpoint_hits_rollup.hits + EXCLUDED.hits";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // increments должны быть отсортированы по ключу, чтобы параллельные пачки брали блокировки в одном порядке
+    public void increment(List<RollupIncrement> increments) {
+        jdbcTemplate.getJdbcOperations().batchUpdate(UPSERT_ROLLUP, increments, increments.size(), (ps, increment) -> {
+            ps.setString(1, increment.key().app());
+            ps.setString(2, increment.key().uri());
+            ps.setString(3, increment.key().unit().name());
+            ps.setTimestamp(4, Timestamp.valueOf(increment.key().bucketStart()));
+            ps.setLong(5, increment.hits());
+        });
+    }
+
+    // корзины одного размера, начавшиеся раньше before; удаляются по суткам, чтобы первая чистка
+    // накопленных за долгое время корзин не шла одной огромной транзакцией
+    public long deleteBefore(BucketUnit unit, LocalDateTime before) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("unit", unit.name())
+                .addValue("before", Timestamp.valueOf(before));
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(bucket_start) FROM endpoint_hits_rollup WHERE bucket_unit = :unit", params, Timestamp.class);
+        long deleted = 0;
+        if (oldest == null) {
+            return deleted;
+        }
+        LocalDateTime from = oldest.toLocalDateTime();
+        while (from.isBefore(before)) {
+            LocalDateTime to = from.plusDays(1).isBefore(before) ? from.plusDays(1) : before;
+            deleted += jdbcTemplate.update("DELETE FROM endpoint_hits_rollup WHERE bucket_unit = :unit " +
+                    "AND bucket_start >= :from AND bucket_start < :to", new MapSqlParameterSource()
+                    .addValue("unit", unit.name())
+                    .addValue("from", Timestamp.valueOf(from))
+                    .addValue("to", Timestamp.valueOf(to)));
+            from = to;
+        }
+        return deleted;
+    }
+
+    public List<ViewStats> sumHits(List<TimeSegment> segments, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app, uri, SUM(hits) AS hits FROM endpoint_hits_rollup WHERE (");
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(bucket_unit = :unit").append(i)
+                    .append(" AND bucket_start >= :from").append(i)
+                    .append(" AND bucket_start < :to").append(i).append(')');
+            params.addValue("unit" + i, segment.unit().name());
+            params.addValue("from" + i, Timestamp.valueOf(segment.from()));
+            params.addValue("to" + i, Timestamp.valueOf(segment.to()));
+        }
+        sql.append(')');
+        if (uris != null) {
+            sql.append(" AND uri IN (:uris)");
+            params.addValue("uris", uris);
+        }
+        sql.append(" GROUP BY app, uri");
+
+        return jdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+}
@@ -0,0 +1,134 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.model.TimeSegment;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Скетчи HyperLogLog уникальных ip по app, uri и корзинам времени (час, день)
+@Repository
+@RequiredArgsConstructor
+public class SketchRepository {
+    private static final String INSERT_MISSING =
+            "INSERT INTO endpoint_hits_hll (app, uri, bucket_unit, bucket_start, sketch) VALUES (?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (bucket_unit, uri, bucket_start, app) DO NOTHING";
+    private static final String UPDATE_SKETCH =
+            "UPDATE endpoint_hits_hll SET sketch = ? " +
+                    "WHERE bucket_unit = ? AND uri = ? AND bucket_start = ? AND app = ?";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // пустые строки нужны, чтобы следующий SELECT ... FOR UPDATE заблокировал каждый ключ
+    public void insertMissing(List<BucketKey> keys, byte[] emptySketch) {
+        jdbcTemplate.getJdbcOperations().batchUpdate(INSERT_MISSING, keys, keys.size(), (ps, key) -> {
+            ps.setString(1, key.app());
+            ps.setString(2, key.uri());
+            ps.setString(3, key.unit().name());
+            ps.setTimestamp(4, Timestamp.valueOf(key.bucketStart()));
+            ps.setBytes(5, emptySketch);
+        });
+    }
+
+    public Map<BucketKey, byte[]> findForUpdate(List<BucketKey> keys) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app, uri, bucket_unit, bucket_start, sketch " +
+                "FROM endpoint_hits_hll WHERE (bucket_unit, uri, bucket_start, app) IN (");
+        for (int i = 0; i < keys.size(); i++) {
+            BucketKey key = keys.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:unit").append(i).append(", :uri").append(i)
+                    .append(", :bucket").append(i).append(", :app").append(i).append(')');
+            params.addValue("unit" + i, key.unit().name());
+            params.addValue("uri" + i, key.uri());
+            params.addValue("bucket" + i, Timestamp.valueOf(key.bucketStart()));
+            params.addValue("app" + i, key.app());
+        }
+        sql.append(") ORDER BY bucket_unit, uri, bucket_start, app FOR UPDATE");
+
+        Map<BucketKey, byte[]> sketches = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), params, rs -> {
+            sketches.put(toKey(rs), rs.getBytes("sketch"));
+        });
+        return sketches;
+    }
+
+    public void updateAll(Map<BucketKey, byte[]> sketches) {
+        List<Map.Entry<BucketKey, byte[]>> entries = List.copyOf(sketches.entrySet());
+        jdbcTemplate.getJdbcOperations().batchUpdate(UPDATE_SKETCH, entries, entries.size(), (ps, entry) -> {
+            BucketKey key = entry.getKey();
+            ps.setBytes(1, entry.getValue());
+            ps.setString(2, key.unit().name());
+            ps.setString(3, key.uri());
+            ps.setTimestamp(4, Timestamp.valueOf(key.bucketStart()));
+            ps.setString(5, key.app());
+        });
+    }
+
+    public Map<BucketKey, byte[]> findAll(List<TimeSegment> segments, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app, uri, bucket_unit, bucket_start, sketch " +
+                "FROM endpoint_hits_hll WHERE (");
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(bucket_unit = :unit").append(i)
+                    .append(" AND bucket_start >= :from").append(i)
+                    .append(" AND bucket_start < :to").append(i).append(')');
+            params.addValue("unit" + i, segment.unit().name());
+            params.addValue("from" + i, Timestamp.valueOf(segment.from()));
+            params.addValue("to" + i, Timestamp.valueOf(segment.to()));
+        }
+        sql.append(')');
+        if (uris != null) {
+            sql.append(" AND uri IN (:uris)");
+            params.addValue("uris", uris);
+        }
+
+        Map<BucketKey, byte[]> sketches = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), params, rs -> {
+            sketches.put(toKey(rs), rs.getBytes("sketch"));
+        });
+        return sketches;
+    }
+
+    // начало суток, покрытых скетчами; пусто — покрыты все
+    public Optional<LocalDateTime> findBackfilledFrom() {
+        List<Timestamp> found = jdbcTemplate.getJdbcOperations().queryForList(
+                "SELECT backfilled_from FROM endpoint_hits_hll_backfill WHERE id = 1", Timestamp.class);
+        return found.isEmpty() || found.get(0) == null
+                ? Optional.empty()
+                : Optional.of(found.get(0).toLocalDateTime());
+    }
+
+    // граница только отодвигается назад: экземпляры сервиса, заполняющие скетчи одновременно, ее не вернут
+    public void moveBackfilledFrom(LocalDateTime day) {
+        jdbcTemplate.update("UPDATE endpoint_hits_hll_backfill SET backfilled_from = :day " +
+                "WHERE id = 1 AND backfilled_from > :day", new MapSqlParameterSource("day", Timestamp.valueOf(day)));
+    }
+
+    public void finishBackfill() {
+        jdbcTemplate.getJdbcOperations().update(
+                "UPDATE endpoint_hits_hll_backfill SET backfilled_from = NULL WHERE id = 1");
+    }
+
+    private BucketKey toKey(ResultSet rs) throws SQLException {
+        return new BucketKey(rs.getString("app"), rs.getString("uri"),
+                BucketUnit.valueOf(rs.getString("bucket_unit")), rs.getTimestamp("bucket_start").toLocalDateTime());
+    }
+}
@@ -1,33 +1,136 @@
 package ru.practicum.statsserver.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
 import ru.practicum.statsdto.ViewStats;
 import ru.practicum.statsserver.model.EndpointHitEntity;
+import ru.practicum.statsserver.model.IpAddresses;
+import ru.practicum.statsserver.model.TimeSegment;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-public interface StatsRepository extends JpaRepository<EndpointHitEntity, Long> {
-
-    @Query("SELECT NEW ru.practicum.statsdto.ViewStats(h.app, h.uri, COUNT(DISTINCT h.ip)) " +
-            "FROM EndpointHitEntity h " +
-            "WHERE h.timestamp BETWEEN :start AND :end " +
-            "AND (:uris IS NULL OR h.uri IN :uris) " +
-            "GROUP BY h.app, h.uri " +
-            "ORDER BY COUNT(DISTINCT h.ip) DESC")
-    List<ViewStats> getUniqueStats(@Param("start") LocalDateTime start,
-                                   @Param("end") LocalDateTime end,
-                                   @Param("uris") List<String> uris);
-
-    @Query("SELECT NEW ru.practicum.statsdto.ViewStats(h.app, h.uri, COUNT(h.id)) " +
-            "FROM EndpointHitEntity h " +
-            "WHERE h.timestamp BETWEEN :start AND :end " +
-            "AND (:uris IS NULL OR h.uri IN :uris) " +
-            "GROUP BY h.app, h.uri " +
-            "ORDER BY COUNT(h.id) DESC")
-    List<ViewStats> getAllStats(@Param("start") LocalDateTime start,
-                                @Param("end") LocalDateTime end,
-                                @Param("uris") List<String> uris);
-}
\ No newline at end of file
+// Сырые хиты: app и uri хранятся ключами словарей, ip — байтами адреса.
+// Группировка и DISTINCT идут по целым и байтам, строки подставляются соединением уже по итогам
+@Repository
+@RequiredArgsConstructor
+public class StatsRepository {
+    private static final String INSERT_HIT =
+            "INSERT INTO endpoint_hits (app_id, uri_id, ip, timestamp) VALUES (?, ?, ?, ?)";
+    private static final String WITH_NAMES =
+            " JOIN endpoint_apps a ON a.id = s.app_id JOIN endpoint_uris u ON u.id = s.uri_id";
+    private static final int BATCH_SIZE = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DictionaryRepository dictionaryRepository;
+
+    // пакетная вставка хитов одним JDBC batch
+    public void insertAll(List<EndpointHitEntity> hits) {
+        Map<String, Integer> appIds = dictionaryRepository.appIds(
+                hits.stream().map(EndpointHitEntity::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = dictionaryRepository.uriIds(
+                hits.stream().map(EndpointHitEntity::getUri).collect(Collectors.toSet()));
+
+        // с reWriteBatchedInserts=true драйвер PostgreSQL склеивает пачку в многострочный INSERT
+        jdbcTemplate.getJdbcOperations().batchUpdate(INSERT_HIT, hits, BATCH_SIZE, (ps, hit) -> {
+            ps.setInt(1, appIds.get(hit.getApp()));
+            ps.setInt(2, uriIds.get(hit.getUri()));
+            ps.setBytes(3, IpAddresses.encode(hit.getIp()));
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    // число уникальных ip в диапазоне, обе границы включаются
+    public List<ViewStats> getUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        String uriCondition = uriCondition(uris, params);
+        if (uriCondition == null) {
+            return List.of();
+        }
+        String sql = "SELECT a.name AS app, u.uri, s.hits FROM (" +
+                "SELECT app_id, uri_id, COUNT(DISTINCT ip) AS hits FROM endpoint_hits " +
+                "WHERE timestamp BETWEEN :start AND :end" + uriCondition + " GROUP BY app_id, uri_id) s" +
+                WITH_NAMES + " ORDER BY s.hits DESC";
+
+        return jdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    // количество сырых хитов в полуинтервалах [from, to)
+    public List<ViewStats> countHits(List<TimeSegment> segments, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String condition = segmentsCondition(segments, uris, params);
+        if (condition == null) {
+            return List.of();
+        }
+        String sql = "SELECT a.name AS app, u.uri, s.hits FROM (" +
+                "SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoint_hits WHERE " + condition +
+                " GROUP BY app_id, uri_id) s" + WITH_NAMES;
+
+        return jdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    // время последнего хита раньше before
+    public Optional<LocalDateTime> findLatestBefore(LocalDateTime before) {
+        Timestamp latest = jdbcTemplate.queryForObject(
+                "SELECT MAX(timestamp) FROM endpoint_hits WHERE timestamp < :before", new MapSqlParameterSource("before", Timestamp.valueOf(before)), Timestamp.class);
+        return Optional.ofNullable(latest).map(Timestamp::toLocalDateTime);
+    }
+
+    // различные пары (app, uri, ip) в полуинтервалах [from, to); timestamp не заполняется
+    public List<EndpointHitEntity> findDistinctVisitors(List<TimeSegment> segments, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String condition = segmentsCondition(segments, uris, params);
+        if (condition == null) {
+            return List.of();
+        }
+        String sql = "SELECT a.name AS app, u.uri, s.ip FROM (" +
+                "SELECT DISTINCT app_id, uri_id, ip FROM endpoint_hits WHERE " + condition + ") s" + WITH_NAMES;
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> EndpointHitEntity.builder()
+                .app(rs.getString("app"))
+                .uri(rs.getString("uri"))
+                .ip(IpAddresses.decode(rs.getBytes("ip")))
+                .build());
+    }
+
+    // null — ни одного из uris нет в словаре, а значит и в хитах
+    private String segmentsCondition(List<TimeSegment> segments, List<String> uris, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(timestamp >= :from").append(i)
+                    .append(" AND timestamp < :to").append(i).append(')');
+            params.addValue("from" + i, Timestamp.valueOf(segment.from()));
+            params.addValue("to" + i, Timestamp.valueOf(segment.to()));
+        }
+        sql.append(')');
+        String uriCondition = uriCondition(uris, params);
+        return uriCondition == null ? null : sql.append(uriCondition).toString();
+    }
+
+    private String uriCondition(List<String> uris, MapSqlParameterSource params) {
+        if (uris == null) {
+            return "";
+        }
+        List<Integer> uriIds = dictionaryRepository.findUriIds(Set.copyOf(uris));
+        if (uriIds.isEmpty()) {
+            return null;
+        }
+        params.addValue("uriIds", uriIds);
+        return " AND uri_id IN (:uriIds)";
+    }
+}
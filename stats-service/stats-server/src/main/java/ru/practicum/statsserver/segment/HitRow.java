@@ -0,0 +1,16 @@
+package ru.practicum.statsserver.segment;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// хит в сегментном хранилище; timestamp — секунды от эпохи без учета часового пояса
+public record HitRow(String app, String uri, String ip, long timestamp) {
+
+    public static HitRow of(String app, String uri, String ip, LocalDateTime timestamp) {
+        return new HitRow(app, uri, ip, toSeconds(timestamp));
+    }
+
+    static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,249 @@
+package ru.practicum.statsserver.segment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Запечатанный сегмент: неизменяемый файл, читается через отображение в память.
+// Строки app, uri и ip хранятся один раз в словаре сегмента, хиты — номерами из словаря.
+// Хиты упорядочены по (uri, app, timestamp): индекс групп (app, uri) дает диапазон строк,
+// внутри которого время ищется двоичным поиском.
+// Формат: заголовок | смещения словаря | байты словаря | группы | timestamp[] | ip[] | crc32
+final class Segment {
+    private static final int MAGIC = 0x48534547; // HSEG
+    private static final int VERSION = 1;
+    private static final int HEADER = Integer.BYTES * 5 + Long.BYTES * 2;
+    private static final int GROUP = Integer.BYTES * 4;
+
+    private final long firstSeq;
+    private final long lastSeq;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int rowCount;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final int dictionaryOffsets;
+    private final int dictionaryBytes;
+    private final int timestamps;
+    private final int ips;
+    private final List<Group> groups;
+    private final Map<String, List<Group>> groupsByUri;
+
+    // строки [start, end) с одинаковыми app и uri
+    private record Group(String app, String uri, int start, int end) {
+    }
+
+    private Segment(long firstSeq, long lastSeq, Path path, MappedByteBuffer buffer) {
+        this.firstSeq = firstSeq;
+        this.lastSeq = lastSeq;
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Файл " + path + " не является сегментом хитов версии " + VERSION);
+        }
+        this.rowCount = buffer.getInt(8);
+        this.minTimestamp = buffer.getLong(12);
+        this.maxTimestamp = buffer.getLong(20);
+        int dictionarySize = buffer.getInt(28);
+        int groupCount = buffer.getInt(32);
+        this.dictionaryOffsets = HEADER;
+        this.dictionaryBytes = dictionaryOffsets + (dictionarySize + 1) * Integer.BYTES;
+        int groupsStart = dictionaryBytes + buffer.getInt(dictionaryOffsets + dictionarySize * Integer.BYTES);
+        this.timestamps = groupsStart + groupCount * GROUP;
+        this.ips = timestamps + rowCount * Long.BYTES;
+
+        // группы и строки app/uri нужны каждому запросу, поэтому читаются один раз
+        this.groups = new ArrayList<>(groupCount);
+        this.groupsByUri = new HashMap<>();
+        for (int i = 0; i < groupCount; i++) {
+            int position = groupsStart + i * GROUP;
+            Group group = new Group(string(buffer.getInt(position)), string(buffer.getInt(position + 4)),
+                    buffer.getInt(position + 8), buffer.getInt(position + 12));
+            groups.add(group);
+            groupsByUri.computeIfAbsent(group.uri(), uri -> new ArrayList<>()).add(group);
+        }
+    }
+
+    static Segment open(Path path, long firstSeq, long lastSeq) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int checked = buffer.capacity() - Integer.BYTES;
+            if (checked < HEADER) {
+                throw new IllegalStateException("Сегмент " + path + " обрезан");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, checked));
+            if ((int) crc.getValue() != buffer.getInt(checked)) {
+                throw new IllegalStateException("Контрольная сумма сегмента " + path + " не совпадает");
+            }
+            return new Segment(firstSeq, lastSeq, path, buffer);
+        }
+    }
+
+    // Файл пишется во временный и переименовывается: после сбоя на диске либо целый сегмент, либо ничего
+    static void write(Path path, List<HitRow> rows) throws IOException {
+        List<HitRow> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(HitRow::uri).thenComparing(HitRow::app).thenComparingLong(HitRow::timestamp));
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        List<int[]> groups = new ArrayList<>();
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        for (int row = 0; row < sorted.size(); row++) {
+            HitRow hit = sorted.get(row);
+            int app = dictionary.computeIfAbsent(hit.app(), s -> dictionary.size());
+            int uri = dictionary.computeIfAbsent(hit.uri(), s -> dictionary.size());
+            dictionary.computeIfAbsent(hit.ip(), s -> dictionary.size());
+            int[] last = groups.isEmpty() ? null : groups.get(groups.size() - 1);
+            if (last == null || last[0] != app || last[1] != uri) {
+                groups.add(new int[]{app, uri, row, row + 1});
+            } else {
+                last[3] = row + 1;
+            }
+            minTimestamp = Math.min(minTimestamp, hit.timestamp());
+            maxTimestamp = Math.max(maxTimestamp, hit.timestamp());
+        }
+
+        List<byte[]> strings = dictionary.keySet().stream()
+                .map(s -> s.getBytes(StandardCharsets.UTF_8))
+                .toList();
+        int stringBytes = strings.stream().mapToInt(bytes -> bytes.length).sum();
+        int size = HEADER + (strings.size() + 1) * Integer.BYTES + stringBytes + groups.size() * GROUP
+                + sorted.size() * (Long.BYTES + Integer.BYTES) + Integer.BYTES;
+
+        ByteBuffer out = ByteBuffer.allocate(size)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(sorted.size())
+                .putLong(minTimestamp)
+                .putLong(maxTimestamp)
+                .putInt(strings.size())
+                .putInt(groups.size());
+        int offset = 0;
+        for (byte[] string : strings) {
+            out.putInt(offset);
+            offset += string.length;
+        }
+        out.putInt(offset);
+        strings.forEach(out::put);
+        groups.forEach(group -> out.putInt(group[0]).putInt(group[1]).putInt(group[2]).putInt(group[3]));
+        sorted.forEach(hit -> out.putLong(hit.timestamp()));
+        sorted.forEach(hit -> out.putInt(dictionary.get(hit.ip())));
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue()).flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // хиты в полуинтервале [from, to) в секундах; uris == null — по всем uri
+    void collect(long from, long to, Set<String> uris, StatsAccumulator accumulator) {
+        if (maxTimestamp < from || minTimestamp >= to) {
+            return;
+        }
+        if (uris == null) {
+            groups.forEach(group -> collect(group, from, to, accumulator));
+            return;
+        }
+        for (String uri : uris) {
+            groupsByUri.getOrDefault(uri, List.of()).forEach(group -> collect(group, from, to, accumulator));
+        }
+    }
+
+    private void collect(Group group, long from, long to, StatsAccumulator accumulator) {
+        int start = lowerBound(group.start(), group.end(), from);
+        int end = lowerBound(start, group.end(), to);
+        if (start >= end) {
+            return;
+        }
+        if (!accumulator.countsVisitors()) {
+            accumulator.addHits(group.app(), group.uri(), end - start);
+            return;
+        }
+        // одинаковые ip в группе декодируются из словаря один раз
+        Set<Integer> seen = new HashSet<>();
+        for (int row = start; row < end; row++) {
+            int ip = buffer.getInt(ips + row * Integer.BYTES);
+            if (seen.add(ip)) {
+                accumulator.addVisitor(group.app(), group.uri(), string(ip));
+            }
+        }
+    }
+
+    // все хиты сегмента, для слияния при уплотнении
+    void forEach(Consumer<HitRow> consumer) {
+        for (Group group : groups) {
+            for (int row = group.start(); row < group.end(); row++) {
+                consumer.accept(new HitRow(group.app(), group.uri(),
+                        string(buffer.getInt(ips + row * Integer.BYTES)), timestamp(row)));
+            }
+        }
+    }
+
+    long firstSeq() {
+        return firstSeq;
+    }
+
+    long lastSeq() {
+        return lastSeq;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    // первая строка диапазона с timestamp >= value
+    private int lowerBound(int start, int end, long value) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamp(middle) < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long timestamp(int row) {
+        return buffer.getLong(timestamps + row * Long.BYTES);
+    }
+
+    private String string(int id) {
+        int start = buffer.getInt(dictionaryOffsets + id * Integer.BYTES);
+        int end = buffer.getInt(dictionaryOffsets + (id + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(dictionaryBytes + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
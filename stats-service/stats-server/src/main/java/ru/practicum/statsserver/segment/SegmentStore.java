@@ -0,0 +1,297 @@
+package ru.practicum.statsserver.segment;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.UniqueMode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Хранилище хитов в файлах на локальном диске (stats.storage.engine=segment).
+// Новые хиты дописываются в журнал wal-<seq>.log и держатся в памяти; набрав max-rows хитов,
+// журнал запечатывается в сегмент segment-<seq>-<seq>.seg. Уплотнение сливает соседние мелкие
+// сегменты в segment-<first>-<last>.seg; при старте сегмент, чей диапазон номеров покрыт другим,
+// считается уже слитым и удаляется. Журналы, оставшиеся после остановки или сбоя, запечатываются при старте
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "stats.storage.engine", havingValue = "segment")
+public class SegmentStore {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)-(\\d+)\\.seg");
+    private static final Pattern WAL_NAME = Pattern.compile("wal-(\\d+)\\.log");
+
+    private final Path directory;
+    private final int maxRows;
+    private final boolean fsync;
+
+    // запись и запечатывание — под блокировкой записи, запросы — под блокировкой чтения
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object compactionLock = new Object();
+
+    private List<Segment> segments = new ArrayList<>();
+    private List<HitRow> memtable = new ArrayList<>();
+    private WriteAheadLog wal;
+    private long walSeq;
+    private long nextSeq;
+
+    public SegmentStore(@Value("${stats.storage.segment.dir:data/stats-segments}") Path directory,
+                        @Value("${stats.storage.segment.max-rows:200000}") int maxRows,
+                        @Value("${stats.storage.segment.fsync:true}") boolean fsync) {
+        this.directory = directory;
+        this.maxRows = maxRows;
+        this.fsync = fsync;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path tmp : files.filter(file -> file.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.delete(tmp);
+            }
+        }
+
+        List<Segment> opened = new ArrayList<>();
+        for (Path file : list(SEGMENT_NAME)) {
+            Matcher name = SEGMENT_NAME.matcher(file.getFileName().toString());
+            name.matches();
+            opened.add(Segment.open(file, Long.parseLong(name.group(1)), Long.parseLong(name.group(2))));
+        }
+        // при равном начале первым идет более широкий диапазон — результат слияния
+        opened.sort(Comparator.comparingLong(Segment::firstSeq)
+                .thenComparing(Comparator.comparingLong(Segment::lastSeq).reversed()));
+        for (Segment segment : opened) {
+            if (!segments.isEmpty() && segment.firstSeq() <= segments.get(segments.size() - 1).lastSeq()) {
+                log.info("Сегмент {} уже слит в более крупный и удаляется", segment.path());
+                Files.delete(segment.path());
+            } else {
+                segments.add(segment);
+            }
+        }
+        nextSeq = segments.isEmpty() ? 1 : segments.get(segments.size() - 1).lastSeq() + 1;
+
+        List<Path> wals = list(WAL_NAME);
+        List<HitRow> recovered = new ArrayList<>();
+        long firstWal = Long.MAX_VALUE;
+        long lastWal = 0;
+        for (Path file : wals) {
+            Matcher name = WAL_NAME.matcher(file.getFileName().toString());
+            name.matches();
+            long seq = Long.parseLong(name.group(1));
+            if (seq < nextSeq) {
+                // журнал уже запечатан, но не успел удалиться
+                Files.delete(file);
+                continue;
+            }
+            recovered.addAll(WriteAheadLog.replay(file));
+            firstWal = Math.min(firstWal, seq);
+            lastWal = Math.max(lastWal, seq);
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Из журналов восстановлено {} хитов", recovered.size());
+            addSegment(firstWal, lastWal, recovered);
+        }
+        for (Path file : wals) {
+            Files.deleteIfExists(file);
+        }
+        nextSeq = Math.max(nextSeq, lastWal + 1);
+        openWal();
+        log.info("Сегментное хранилище {}: {} сегментов", directory, segments.size());
+    }
+
+    // хиты видны запросам сразу; на диске они в журнале, а не в сегменте
+    public void append(List<HitRow> rows) {
+        lock.writeLock().lock();
+        try {
+            appendToWal(rows);
+            memtable.addAll(rows);
+            if (memtable.size() >= maxRows) {
+                seal();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удается записать хиты в " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // to не включается в диапазон; читаются только сегменты, пересекающие [from, to)
+    public List<ViewStats> collect(LocalDateTime from, LocalDateTime to, List<String> uris, UniqueMode mode) {
+        long fromSeconds = HitRow.toSeconds(from);
+        long toSeconds = HitRow.toSeconds(to);
+        // повторы в uris не должны считаться дважды
+        Set<String> uriSet = uris == null ? null : Set.copyOf(uris);
+        StatsAccumulator accumulator = new StatsAccumulator(mode);
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments) {
+                segment.collect(fromSeconds, toSeconds, uriSet, accumulator);
+            }
+            for (HitRow row : memtable) {
+                if (row.timestamp() >= fromSeconds && row.timestamp() < toSeconds
+                        && (uriSet == null || uriSet.contains(row.uri()))) {
+                    if (accumulator.countsVisitors()) {
+                        accumulator.addVisitor(row.app(), row.uri(), row.ip());
+                    } else {
+                        accumulator.addHits(row.app(), row.uri(), 1);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return accumulator.result();
+    }
+
+    // Сливает соседние сегменты, пока их суммарный размер не больше max-rows.
+    // Слияние идет без блокировки записи: она берется только для подмены списка сегментов
+    @Scheduled(initialDelayString = "${stats.storage.segment.compaction-interval-ms:600000}",
+            fixedDelayString = "${stats.storage.segment.compaction-interval-ms:600000}")
+    public void compact() {
+        synchronized (compactionLock) {
+            List<Segment> run;
+            while ((run = nextCompactionRun()).size() > 1) {
+                try {
+                    merge(run);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Не удается уплотнить сегменты в " + directory, e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            wal.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Segment> nextCompactionRun() {
+        List<Segment> snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = List.copyOf(segments);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Segment> run = new ArrayList<>();
+        long rows = 0;
+        for (Segment segment : snapshot) {
+            if (rows + segment.rowCount() > maxRows) {
+                if (run.size() > 1) {
+                    return run;
+                }
+                run.clear();
+                rows = 0;
+            }
+            run.add(segment);
+            rows += segment.rowCount();
+        }
+        return run;
+    }
+
+    private void merge(List<Segment> run) throws IOException {
+        List<HitRow> rows = new ArrayList<>();
+        run.forEach(segment -> segment.forEach(rows::add));
+        long firstSeq = run.get(0).firstSeq();
+        long lastSeq = run.get(run.size() - 1).lastSeq();
+        Path path = segmentPath(firstSeq, lastSeq);
+        Segment.write(path, rows);
+        Segment merged = Segment.open(path, firstSeq, lastSeq);
+
+        lock.writeLock().lock();
+        try {
+            List<Segment> replaced = new ArrayList<>(segments);
+            int index = replaced.indexOf(run.get(0));
+            replaced.removeAll(run);
+            replaced.add(index, merged);
+            segments = replaced;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // отображенные в память файлы можно удалять: запросы, начатые до подмены, дочитают их
+        for (Segment segment : run) {
+            Files.delete(segment.path());
+        }
+        log.info("Сегменты {}..{} слиты: {} хитов", firstSeq, lastSeq, rows.size());
+    }
+
+    // журнал с неотрезанной оборванной записью сменяется новым: принятые хиты из него уже в memtable
+    private void appendToWal(List<HitRow> rows) throws IOException {
+        try {
+            wal.append(rows);
+        } catch (IOException e) {
+            if (wal.isBroken()) {
+                log.warn("Журнал {} поврежден, хиты пишутся в новый журнал", wal.path());
+                try {
+                    rollWal();
+                } catch (IOException rollFailure) {
+                    e.addSuppressed(rollFailure);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void rollWal() throws IOException {
+        if (memtable.isEmpty()) {
+            wal.delete();
+            openWal();
+        } else {
+            seal();
+        }
+    }
+
+    private void seal() throws IOException {
+        addSegment(walSeq, walSeq, memtable);
+        wal.delete();
+        memtable = new ArrayList<>();
+        openWal();
+    }
+
+    private void addSegment(long firstSeq, long lastSeq, List<HitRow> rows) throws IOException {
+        Path path = segmentPath(firstSeq, lastSeq);
+        Segment.write(path, rows);
+        List<Segment> updated = new ArrayList<>(segments);
+        updated.add(Segment.open(path, firstSeq, lastSeq));
+        segments = updated;
+    }
+
+    private void openWal() throws IOException {
+        walSeq = nextSeq++;
+        wal = WriteAheadLog.open(directory.resolve("wal-" + walSeq + ".log"), fsync);
+    }
+
+    private Path segmentPath(long firstSeq, long lastSeq) {
+        return directory.resolve("segment-" + firstSeq + "-" + lastSeq + ".seg");
+    }
+
+    private List<Path> list(Pattern pattern) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> pattern.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+    }
+}
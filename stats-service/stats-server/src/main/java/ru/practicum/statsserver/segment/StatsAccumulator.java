@@ -0,0 +1,62 @@
+package ru.practicum.statsserver.segment;
+
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.UniqueMode;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+// сводит хиты из сегментов и памяти в ViewStats по (app, uri)
+final class StatsAccumulator {
+    private final UniqueMode mode;
+    private final Map<List<String>, Long> hits = new HashMap<>();
+    private final Map<List<String>, Set<String>> visitors = new HashMap<>();
+    private final Map<List<String>, HyperLogLog> sketches = new HashMap<>();
+
+    StatsAccumulator(UniqueMode mode) {
+        this.mode = mode;
+    }
+
+    // false — достаточно числа хитов, ip не нужны
+    boolean countsVisitors() {
+        return mode != UniqueMode.NONE;
+    }
+
+    void addHits(String app, String uri, long count) {
+        hits.merge(List.of(app, uri), count, Long::sum);
+    }
+
+    void addVisitor(String app, String uri, String ip) {
+        List<String> key = List.of(app, uri);
+        if (mode == UniqueMode.APPROX) {
+            sketches.computeIfAbsent(key, k -> new HyperLogLog()).add(ip);
+        } else {
+            visitors.computeIfAbsent(key, k -> new HashSet<>()).add(ip);
+        }
+    }
+
+    List<ViewStats> result() {
+        Map<List<String>, Long> counts = switch (mode) {
+            case NONE -> hits;
+            case EXACT -> toCounts(visitors, set -> (long) set.size());
+            case APPROX -> toCounts(sketches, HyperLogLog::estimate);
+        };
+        return counts.entrySet().stream()
+                .map(entry -> new ViewStats(entry.getKey().get(0), entry.getKey().get(1), entry.getValue()))
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    private static <T> Map<List<String>, Long> toCounts(Map<List<String>, T> values,
+                                                        ToLongFunction<T> count) {
+        Map<List<String>, Long> counts = new HashMap<>();
+        values.forEach((key, value) -> counts.put(key, count.applyAsLong(value)));
+        return counts;
+    }
+}
@@ -0,0 +1,158 @@
+package ru.practicum.statsserver.segment;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Журнал хитов еще не запечатанного сегмента. Пачка пишется одной записью [длина, crc32, данные];
+// запись, оборванная сбоем, при восстановлении не проходит проверку и отрезается вместе с хвостом.
+// Неудачная запись при работе отрезается сразу: иначе следующие пачки легли бы за оборванной
+// и при восстановлении пропали вместе с ней
+@Slf4j
+final class WriteAheadLog implements Closeable {
+    private static final int RECORD_HEADER = Integer.BYTES * 2;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean fsync;
+    // оборванную запись не удалось отрезать — дописывать в этот журнал больше нельзя
+    private boolean broken;
+
+    WriteAheadLog(Path path, FileChannel channel, boolean fsync) {
+        this.path = path;
+        this.channel = channel;
+        this.fsync = fsync;
+    }
+
+    static WriteAheadLog open(Path path, boolean fsync) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        return new WriteAheadLog(path, channel, fsync);
+    }
+
+    // после возврата с fsync=true пачка переживет падение процесса и ОС;
+    // при исключении пачки в журнале нет, а если isBroken(), журнал нужно сменить
+    void append(List<HitRow> rows) throws IOException {
+        if (broken) {
+            throw new IOException("Журнал " + path + " поврежден незавершенной записью");
+        }
+        byte[] payload = encode(rows);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        long start = channel.size();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            discardFrom(start, e);
+            throw e;
+        }
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    static List<HitRow> replay(Path path) throws IOException {
+        List<HitRow> rows = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int size = buffer.remaining();
+        int valid = 0;
+        while (buffer.remaining() >= RECORD_HEADER) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            rows.addAll(decode(payload));
+            valid = buffer.position();
+        }
+        if (valid < size) {
+            log.warn("Журнал {} оборван: отброшено {} байт после последней целой записи", path, size - valid);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return rows;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void discardFrom(long start, Exception failure) {
+        try {
+            channel.truncate(start);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            broken = true;
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static byte[] encode(List<HitRow> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(rows.size());
+            for (HitRow row : rows) {
+                out.writeUTF(row.app());
+                out.writeUTF(row.uri());
+                out.writeUTF(row.ip());
+                out.writeLong(row.timestamp());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<HitRow> decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int count = in.readInt();
+            List<HitRow> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new HitRow(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong()));
+            }
+            return rows;
+        }
+    }
+}
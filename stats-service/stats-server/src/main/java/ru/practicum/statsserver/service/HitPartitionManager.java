@@ -0,0 +1,136 @@
+package ru.practicum.statsserver.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.statsserver.model.HitPartition;
+import ru.practicum.statsserver.model.PartitionUnit;
+import ru.practicum.statsserver.model.RetentionAction;
+import ru.practicum.statsserver.repository.PartitionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Обслуживание секций endpoint_hits: секции на stats.partitions.ahead периодов вперед, перенос хитов
+// из секции по умолчанию и удаление (или отсоединение) секций старше stats.partitions.retention.
+// Запросы статистики фильтруют хиты по timestamp, поэтому PostgreSQL читает только секции нужного интервала.
+// Счетчики и скетчи хранятся отдельно и сроком хранения сырых хитов не ограничиваются;
+// точные unique=true за пределами срока отклоняются (см. RawHitRetention)
+@Slf4j
+@Component
+// Только для хранения хитов в БД: при stats.storage.engine=segment таблица не используется
+@ConditionalOnExpression("${stats.partitions.enabled:true} and '${stats.storage.engine:jpa}' == 'jpa'")
+public class HitPartitionManager {
+    private static final long CONVERSION_BATCH_SIZE = 50_000;
+
+    private final PartitionRepository partitionRepository;
+    private final PartitionUnit unit;
+    private final int ahead;
+    private final RawHitRetention rawHitRetention;
+    private final RetentionAction retentionAction;
+
+    public HitPartitionManager(PartitionRepository partitionRepository,
+                               @Value("${stats.partitions.unit:MONTH}") PartitionUnit unit,
+                               @Value("${stats.partitions.ahead:2}") int ahead,
+                               RawHitRetention rawHitRetention,
+                               @Value("${stats.partitions.retention-action:DROP}") RetentionAction retentionAction) {
+        this.partitionRepository = partitionRepository;
+        this.unit = unit;
+        this.ahead = ahead;
+        this.rawHitRetention = rawHitRetention;
+        this.retentionAction = retentionAction;
+    }
+
+    // до запуска веб-сервера: хиты не должны приходить в несекционированную таблицу во время преобразования
+    @PostConstruct
+    public void init() {
+        if (!partitionRepository.isPartitioned()) {
+            log.info("Таблица endpoint_hits преобразуется в секционированную по {}", unit);
+            partitionRepository.startConversion();
+        }
+        moveLegacyHits();
+        maintain();
+    }
+
+    // перенос хитов прежней таблицы, в том числе продолжение прерванного переноса
+    private void moveLegacyHits() {
+        Optional<Long> minId = partitionRepository.findLegacyMinId();
+        Optional<Long> maxId = partitionRepository.findLegacyMaxId();
+        if (minId.isPresent() && maxId.isPresent()) {
+            long moved = 0;
+            for (long from = minId.get(); from <= maxId.get(); from += CONVERSION_BATCH_SIZE) {
+                moved += partitionRepository.moveLegacyHits(unit, from, from + CONVERSION_BATCH_SIZE);
+                log.info("В секции перенесены хиты с id до {} из {}",
+                        Math.min(from + CONVERSION_BATCH_SIZE - 1, maxId.get()), maxId.get());
+            }
+            log.info("В секции перенесено {} хитов", moved);
+        }
+        if (!partitionRepository.finishConversion()) {
+            log.warn("В endpoint_hits_legacy остались хиты, перенос продолжится при следующем старте");
+        }
+    }
+
+    @Scheduled(initialDelayString = "${stats.partitions.maintenance-interval-ms:3600000}",
+            fixedDelayString = "${stats.partitions.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<HitPartition> existing = new ArrayList<>(partitionRepository.findPartitionNames().stream()
+                .map(PartitionUnit::parse)
+                .flatMap(Optional::stream)
+                .toList());
+
+        // текущая и следующие секции, а также секции для хитов, попавших в секцию по умолчанию
+        TreeMap<LocalDateTime, HitPartition> wanted = new TreeMap<>();
+        LocalDateTime start = unit.floor(now);
+        for (int i = 0; i <= ahead; i++) {
+            wanted.put(start, unit.partition(start));
+            start = unit.next(start);
+        }
+        for (LocalDateTime defaultStart : partitionRepository.findDefaultPartitionStarts(unit)) {
+            wanted.put(defaultStart, unit.partition(defaultStart));
+        }
+
+        for (HitPartition partition : wanted.values()) {
+            // после смены stats.partitions.unit старые секции другого размера остаются как есть
+            if (existing.stream().anyMatch(partition::overlaps)) {
+                continue;
+            }
+            try {
+                if (partitionRepository.createPartition(partition)) {
+                    log.info("Создана секция хитов {} [{}, {})", partition.name(), partition.from(), partition.to());
+                }
+                existing.add(partition);
+            } catch (DataAccessException e) {
+                log.warn("Не удалось создать секцию хитов {}", partition.name(), e);
+            }
+        }
+
+        // секции, целиком лежащие раньше границы, выходят из хранения
+        rawHitRetention.cutoff(now).ifPresent(cutoff -> existing.stream()
+                .filter(partition -> !partition.to().isAfter(cutoff))
+                .sorted(Comparator.comparing(HitPartition::from))
+                .forEach(this::expire));
+    }
+
+    private void expire(HitPartition partition) {
+        try {
+            if (retentionAction == RetentionAction.DETACH) {
+                String archive = partitionRepository.detachPartition(partition);
+                log.info("Секция хитов {} отсоединена и сохранена как {}", partition.name(), archive);
+            } else {
+                partitionRepository.dropPartition(partition);
+                log.info("Секция хитов {} удалена по сроку хранения", partition.name());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Не удалось снять с хранения секцию хитов {}", partition.name(), e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.statsserver.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.statsserver.exception.ValidationException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Срок хранения сырых хитов: stats.partitions.retention, действует только при секционировании.
+// Точный unique=true — это COUNT DISTINCT по сырым хитам, и за пределами срока он молча занижался бы,
+// поэтому такие запросы отклоняются. Для старых интервалов остаются unique=approx (скетчи) и
+// unique=false (счетчики): срок хранения сырых хитов их не затрагивает.
+// 0 — хранить все, ограничений нет
+@Component
+public class RawHitRetention {
+    private final Duration retention;
+
+    public RawHitRetention(@Value("${stats.partitions.enabled:true}") boolean partitioned,
+                           @Value("${stats.partitions.retention:0s}") Duration retention) {
+        this.retention = partitioned ? retention : Duration.ZERO;
+    }
+
+    // хиты не раньше этой границы гарантированно хранятся: удаляются только секции, целиком лежащие до нее
+    public Optional<LocalDateTime> cutoff(LocalDateTime now) {
+        return retention.isZero() ? Optional.empty() : Optional.of(now.minus(retention));
+    }
+
+    public void checkExactFrom(LocalDateTime start) {
+        cutoff(LocalDateTime.now())
+                .filter(start::isBefore)
+                .ifPresent(cutoff -> {
+                    throw new ValidationException("unique=true считается по сырым хитам, а они хранятся с " + cutoff +
+                            " (stats.partitions.retention); для более раннего начала используйте unique=approx");
+                });
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.statsserver.service;
+
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.TimeSegment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Разбивает диапазон на самые крупные корзины, которые в него помещаются.
+// Края, не покрытые даже минутной корзиной, читаются из сырых хитов.
+public final class RollupPlanner {
+    private static final BucketUnit[] ALL_UNITS = {BucketUnit.DAY, BucketUnit.HOUR, BucketUnit.MINUTE};
+    private static final BucketUnit[] DAYS_AND_HOURS = {BucketUnit.DAY, BucketUnit.HOUR};
+    private static final BucketUnit[] DAYS_ONLY = {BucketUnit.DAY};
+
+    private RollupPlanner() {
+    }
+
+    public static List<TimeSegment> plan(LocalDateTime from, LocalDateTime to) {
+        return plan(from, to, ALL_UNITS);
+    }
+
+    // Минутные и часовые корзины хранятся ограниченное время (см. RollupRetention): раньше minutesFrom
+    // есть только часовые и суточные корзины, раньше hoursFrom — только суточные.
+    // minutesFrom выровнен по часу, hoursFrom — по суткам
+    public static List<TimeSegment> plan(LocalDateTime from, LocalDateTime to,
+                                         LocalDateTime hoursFrom, LocalDateTime minutesFrom) {
+        List<TimeSegment> segments = new ArrayList<>();
+        split(from, min(to, hoursFrom), DAYS_ONLY, 0, segments);
+        split(max(from, hoursFrom), min(to, minutesFrom), DAYS_AND_HOURS, 0, segments);
+        split(max(from, minutesFrom), to, ALL_UNITS, 0, segments);
+        return segments;
+    }
+
+    // units — от крупных к мелким
+    public static List<TimeSegment> plan(LocalDateTime from, LocalDateTime to, BucketUnit... units) {
+        List<TimeSegment> segments = new ArrayList<>();
+        split(from, to, units, 0, segments);
+        return segments;
+    }
+
+    private static void split(LocalDateTime from, LocalDateTime to, BucketUnit[] units, int unitIndex,
+                              List<TimeSegment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (unitIndex == units.length) {
+            segments.add(new TimeSegment(null, from, to));
+            return;
+        }
+
+        BucketUnit unit = units[unitIndex];
+        LocalDateTime alignedFrom = unit.ceil(from);
+        LocalDateTime alignedTo = unit.floor(to);
+
+        if (alignedFrom.isBefore(alignedTo)) {
+            split(from, alignedFrom, units, unitIndex + 1, segments);
+            segments.add(new TimeSegment(unit, alignedFrom, alignedTo));
+            split(alignedTo, to, units, unitIndex + 1, segments);
+        } else {
+            split(from, to, units, unitIndex + 1, segments);
+        }
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.statsserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.TimeSegment;
+import ru.practicum.statsserver.repository.RollupRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Срок хранения мелких корзин счетчиков: минутные старше stats.rollup.minute-retention и часовые старше
+// stats.rollup.hour-retention удаляются — их хиты уже учтены в покрывающих часовых и суточных корзинах.
+// План запроса строится с теми же границами, поэтому удаленные корзины никогда не читаются;
+// края старых интервалов, не покрытые сохранившимися корзинами, читаются из сырых хитов.
+// 0 — хранить корзины без ограничения срока
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "stats.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class RollupRetention {
+    private final RollupRepository rollupRepository;
+    private final Duration minuteRetention;
+    private final Duration hourRetention;
+
+    public RollupRetention(RollupRepository rollupRepository,
+                           @Value("${stats.rollup.minute-retention:0s}") Duration minuteRetention,
+                           @Value("${stats.rollup.hour-retention:0s}") Duration hourRetention) {
+        // раньше начала минутных корзин обязаны лежать часовые
+        if (!hourRetention.isZero() && (minuteRetention.isZero() || minuteRetention.compareTo(hourRetention) > 0)) {
+            throw new IllegalArgumentException("stats.rollup.minute-retention должен быть не больше hour-retention");
+        }
+        this.rollupRepository = rollupRepository;
+        this.minuteRetention = minuteRetention;
+        this.hourRetention = hourRetention;
+    }
+
+    // to не включается в диапазон
+    public List<TimeSegment> plan(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime now = LocalDateTime.now();
+        return RollupPlanner.plan(from, to, hoursFrom(now), minutesFrom(now));
+    }
+
+    // удаляется с запасом в одну корзину: запрос, спланированный чуть раньше, еще может читать корзины у границы
+    @Scheduled(initialDelayString = "${stats.rollup.retention-interval-ms:3600000}",
+            fixedDelayString = "${stats.rollup.retention-interval-ms:3600000}")
+    public void prune() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!minuteRetention.isZero()) {
+            long deleted = rollupRepository.deleteBefore(BucketUnit.MINUTE, minutesFrom(now).minusHours(1));
+            log.info("Удалено минутных корзин счетчиков: {}", deleted);
+        }
+        if (!hourRetention.isZero()) {
+            long deleted = rollupRepository.deleteBefore(BucketUnit.HOUR, hoursFrom(now).minusDays(1));
+            log.info("Удалено часовых корзин счетчиков: {}", deleted);
+        }
+    }
+
+    // граница выровнена по часу, чтобы все, что раньше нее, покрывалось часовыми корзинами
+    private LocalDateTime minutesFrom(LocalDateTime now) {
+        return minuteRetention.isZero() ? LocalDateTime.MIN : BucketUnit.HOUR.floor(now.minus(minuteRetention));
+    }
+
+    private LocalDateTime hoursFrom(LocalDateTime now) {
+        return hourRetention.isZero() ? LocalDateTime.MIN : BucketUnit.DAY.floor(now.minus(hourRetention));
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.statsserver.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.statsdto.EndpointHit;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.exception.ValidationException;
+import ru.practicum.statsserver.model.UniqueMode;
+import ru.practicum.statsserver.segment.HitRow;
+import ru.practicum.statsserver.segment.SegmentStore;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Статистика в сегментном хранилище на локальном диске вместо таблиц БД (stats.storage.engine=segment).
+// Счетчики по корзинам и скетчи не ведутся: сегменты сами отсекаются по времени и uri
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "stats.storage.engine", havingValue = "segment")
+public class SegmentStatsService implements StatsService {
+
+    private final SegmentStore store;
+    private final TrendingService trendingService;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Override
+    public void saveHit(EndpointHit hitDto) {
+        saveHits(List.of(hitDto));
+    }
+
+    @Override
+    public void saveHits(List<EndpointHit> hitDtoList) {
+        if (hitDtoList.isEmpty()) {
+            return;
+        }
+        List<HitRow> rows = new ArrayList<>(hitDtoList.size());
+        List<LocalDateTime> timestamps = new ArrayList<>(hitDtoList.size());
+        for (EndpointHit hit : hitDtoList) {
+            LocalDateTime timestamp = LocalDateTime.parse(hit.getTimestamp(), formatter);
+            rows.add(HitRow.of(hit.getApp(), hit.getUri(), hit.getIp(), timestamp));
+            timestamps.add(timestamp);
+        }
+        store.append(rows);
+        for (int i = 0; i < rows.size(); i++) {
+            trendingService.record(rows.get(i).app(), rows.get(i).uri(), timestamps.get(i));
+        }
+    }
+
+    @Override
+    public List<ViewStats> getStats(String start, String end, List<String> uris, UniqueMode unique) {
+        LocalDateTime s = LocalDateTime.parse(start, formatter);
+        LocalDateTime e = LocalDateTime.parse(end, formatter);
+
+        if (s.isAfter(e)) {
+            throw new ValidationException("Дата начала должна быть раньше даты окончания");
+        }
+
+        List<String> filteredUris = (uris != null && !uris.isEmpty()) ? uris : null;
+        // end включается в диапазон, хиты хранятся с точностью до секунды
+        return store.collect(s, e.plusSeconds(1), filteredUris, unique);
+    }
+}
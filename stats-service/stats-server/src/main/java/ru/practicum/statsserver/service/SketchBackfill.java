@@ -0,0 +1,90 @@
+package ru.practicum.statsserver.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.EndpointHitEntity;
+import ru.practicum.statsserver.model.TimeSegment;
+import ru.practicum.statsserver.repository.SketchRepository;
+import ru.practicum.statsserver.repository.StatsRepository;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Заполнение endpoint_hits_hll по хитам, сохраненным до появления скетчей: сутки за сутками назад
+// от границы endpoint_hits_hll_backfill.backfilled_from, пропуская сутки без хитов.
+// Слияние HyperLogLog идемпотентно, поэтому сутки, уже попавшие в скетчи на пути записи или заполненные
+// другим экземпляром, можно сливать повторно, а прерванное заполнение продолжается с сохраненной границы.
+// Пока оно идет, UniqueSketchService читает сутки раньше границы из сырых хитов
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "stats.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class SketchBackfill {
+    private final SketchRepository sketchRepository;
+    private final StatsRepository statsRepository;
+    private final UniqueSketchService uniqueSketchService;
+
+    public SketchBackfill(SketchRepository sketchRepository,
+                          StatsRepository statsRepository,
+                          UniqueSketchService uniqueSketchService) {
+        this.sketchRepository = sketchRepository;
+        this.statsRepository = statsRepository;
+        this.uniqueSketchService = uniqueSketchService;
+    }
+
+    @PostConstruct
+    public void init() {
+        sketchRepository.findBackfilledFrom().ifPresent(from -> {
+            log.info("Скетчи уникальных ip заполняются по хитам раньше {}", from);
+            uniqueSketchService.useSketchesFrom(from);
+        });
+    }
+
+    // за один вызов заполняются одни сутки
+    @Scheduled(initialDelayString = "${stats.sketch.backfill-interval-ms:1000}",
+            fixedDelayString = "${stats.sketch.backfill-interval-ms:1000}")
+    public void step() {
+        Optional<LocalDateTime> backfilledFrom = sketchRepository.findBackfilledFrom();
+        if (backfilledFrom.isEmpty()) {
+            uniqueSketchService.useSketchesFrom(LocalDateTime.MIN);
+            return;
+        }
+        Optional<LocalDateTime> latest = statsRepository.findLatestBefore(backfilledFrom.get());
+        if (latest.isEmpty()) {
+            sketchRepository.finishBackfill();
+            uniqueSketchService.useSketchesFrom(LocalDateTime.MIN);
+            log.info("Скетчи уникальных ip заполнены по всем сохраненным хитам");
+            return;
+        }
+
+        LocalDateTime day = BucketUnit.DAY.floor(latest.get());
+        uniqueSketchService.store(daySketches(day));
+        sketchRepository.moveBackfilledFrom(day);
+        uniqueSketchService.useSketchesFrom(day);
+        log.debug("Скетчи уникальных ip заполнены за {}", day);
+    }
+
+    // часовые скетчи и суточный, собранный из них; сырые хиты читаются по часу, чтобы знать корзину ip
+    private Map<BucketKey, HyperLogLog> daySketches(LocalDateTime day) {
+        Map<BucketKey, HyperLogLog> sketches = new HashMap<>();
+        for (LocalDateTime hour = day; hour.isBefore(day.plusDays(1)); hour = hour.plusHours(1)) {
+            List<EndpointHitEntity> visitors = statsRepository.findDistinctVisitors(
+                    List.of(new TimeSegment(null, hour, hour.plusHours(1))), null);
+            for (EndpointHitEntity visitor : visitors) {
+                sketches.computeIfAbsent(new BucketKey(visitor.getApp(), visitor.getUri(), BucketUnit.HOUR, hour),
+                        key -> new HyperLogLog()).add(visitor.getIp());
+                sketches.computeIfAbsent(new BucketKey(visitor.getApp(), visitor.getUri(), BucketUnit.DAY, day),
+                        key -> new HyperLogLog()).add(visitor.getIp());
+            }
+        }
+        return sketches;
+    }
+}
@@ -0,0 +1,154 @@
+package ru.practicum.statsserver.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.EndpointHitEntity;
+import ru.practicum.statsserver.model.VisitorSketch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Результаты /stats по закрытым суткам, отдельно по каждому uri: суммы хитов для запросов без unique
+// и сериализованные скетчи уникальных ip для unique=approx. Скетчи по закрытым суткам сливаются
+// с посчитанными заново краями интервала, и только после этого оценивается число уникальных.
+// Основной сервис спрашивает интервалы от «сейчас минус год», поэтому после выравнивания по суткам
+// ключ меняется раз в день, а незакрытый хвост дочитывается свежим запросом.
+// Сутки закрыты, когда с их конца прошло stats.result-cache.lateness; хиты старше этого
+// после коммита сбрасывают записи, в интервал которых попали.
+// Метрики: cache.gets{cache=stats.result|stats.result.approx, result=hit|miss}, cache.evictions, cache.size
+@Component
+@ConditionalOnProperty(value = "stats.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class StatsResultCache {
+    // примерная память строки кэша сверх байтов скетча: ключ, ссылки, заголовок массива
+    private static final int SKETCH_OVERHEAD = 64;
+    private final Duration lateness;
+    private final Cache<ClosedRange, List<ViewStats>> sums;
+    private final Cache<ClosedRange, List<VisitorSketch>> sketches;
+    // растет при каждом сбросе: запрос, прочитавший снимок до коммита опоздавших хитов, не оставит их в кэше
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // uri == null — все uri сразу
+    private record ClosedRange(String uri, LocalDateTime from, LocalDateTime to) {
+
+        boolean contains(EndpointHitEntity hit) {
+            return (uri == null || uri.equals(hit.getUri()))
+                    && !hit.getTimestamp().isBefore(from) && hit.getTimestamp().isBefore(to);
+        }
+    }
+
+    public StatsResultCache(MeterRegistry meterRegistry,
+                            @Value("${stats.result-cache.max-rows:200000}") long maxRows,
+                            @Value("${stats.result-cache.max-sketch-bytes:67108864}") long maxSketchBytes,
+                            @Value("${stats.result-cache.expire-after-access:1h}") Duration expireAfterAccess,
+                            @Value("${stats.result-cache.lateness:5m}") Duration lateness) {
+        this.lateness = lateness;
+        // вес записи — число строк результата, иначе запрос без uris вытеснил бы весь кэш одной записью
+        this.sums = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((ClosedRange range, List<ViewStats> rows) -> rows.size() + 1)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        // скетч редкого uri в разреженной записи занимает десятки байт, частого — 4 КБ, поэтому вес — байты
+        this.sketches = Caffeine.newBuilder()
+                .maximumWeight(maxSketchBytes)
+                .weigher((ClosedRange range, List<VisitorSketch> rows) -> rows.stream()
+                        .mapToInt(row -> row.sketch().length + SKETCH_OVERHEAD)
+                        .sum() + SKETCH_OVERHEAD)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sums, "stats.result");
+        CaffeineCacheMetrics.monitor(meterRegistry, sketches, "stats.result.approx");
+    }
+
+    // конец последних закрытых суток
+    public LocalDateTime closedBefore() {
+        return BucketUnit.DAY.floor(LocalDateTime.now().minus(lateness));
+    }
+
+    // from и to — границы суток не позже closedBefore(); loader получает uri без записи в кэше
+    // (null — все uri) и считает их одним запросом
+    public List<ViewStats> getHits(LocalDateTime from, LocalDateTime to, List<String> uris,
+                                   Function<List<String>, List<ViewStats>> loader) {
+        return get(sums, from, to, uris, loader, ViewStats::getUri);
+    }
+
+    // то же для unique=approx: скетчи из кэша не меняются, сливать их нужно в новый HyperLogLog
+    public List<VisitorSketch> getSketches(LocalDateTime from, LocalDateTime to, List<String> uris,
+                                           Function<List<String>, List<VisitorSketch>> loader) {
+        return get(sketches, from, to, uris, loader, VisitorSketch::uri);
+    }
+
+    // вызывается в транзакции сохранения хитов
+    public void invalidate(List<EndpointHitEntity> hits) {
+        AfterCommit.run(() -> invalidateLate(hits));
+    }
+
+    // записи кэша кончаются не позже closedBefore(), поэтому более свежие хиты их не затрагивают
+    private void invalidateLate(List<EndpointHitEntity> hits) {
+        LocalDateTime closedBefore = closedBefore();
+        List<EndpointHitEntity> late = hits.stream()
+                .filter(hit -> hit.getTimestamp().isBefore(closedBefore))
+                .toList();
+        if (late.isEmpty()) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        sums.asMap().keySet().removeIf(range -> late.stream().anyMatch(range::contains));
+        sketches.asMap().keySet().removeIf(range -> late.stream().anyMatch(range::contains));
+    }
+
+    private <R> List<R> get(Cache<ClosedRange, List<R>> cache, LocalDateTime from, LocalDateTime to,
+                            List<String> uris, Function<List<String>, List<R>> loader, Function<R, String> uriOf) {
+        long generation = invalidations.get();
+        Set<ClosedRange> ranges = new LinkedHashSet<>();
+        if (uris == null) {
+            ranges.add(new ClosedRange(null, from, to));
+        } else {
+            uris.forEach(uri -> ranges.add(new ClosedRange(uri, from, to)));
+        }
+
+        Map<ClosedRange, List<R>> found = cache.getAll(ranges, missing -> load(missing, loader, uriOf));
+        if (invalidations.get() != generation) {
+            cache.invalidateAll(ranges);
+        }
+        List<R> result = new ArrayList<>();
+        found.values().forEach(result::addAll);
+        return result;
+    }
+
+    private static <R> Map<ClosedRange, List<R>> load(Set<? extends ClosedRange> missing,
+                                                      Function<List<String>, List<R>> loader,
+                                                      Function<R, String> uriOf) {
+        ClosedRange any = missing.iterator().next();
+        if (any.uri() == null) {
+            return Map.of(any, loader.apply(null));
+        }
+
+        // uri без хитов тоже кэшируются — пустым списком
+        Map<String, List<R>> byUri = new HashMap<>();
+        missing.forEach(range -> byUri.put(range.uri(), new ArrayList<>()));
+        for (R row : loader.apply(List.copyOf(byUri.keySet()))) {
+            byUri.get(uriOf.apply(row)).add(row);
+        }
+        Map<ClosedRange, List<R>> loaded = new HashMap<>();
+        missing.forEach(range -> loaded.put(range, List.copyOf(byUri.get(range.uri()))));
+        return loaded;
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.statsserver.service;
 
 import ru.practicum.statsdto.EndpointHit;
 import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.UniqueMode;
 
 import java.util.List;
 
@@ -9,6 +10,8 @@ import java.util.List;
 public interface StatsService {
     void saveHit(EndpointHit dto);
 
-    List<ViewStats> getStats(String start, String end, List<String> uris, boolean unique);
+    void saveHits(List<EndpointHit> dtoList);
+
+    List<ViewStats> getStats(String start, String end, List<String> uris, UniqueMode unique);
 
 }
\ No newline at end of file
@@ -2,37 +2,66 @@ package ru.practicum.statsserver.service;
 
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.statsdto.EndpointHit;
 import ru.practicum.statsdto.ViewStats;
 import ru.practicum.statsserver.exception.ValidationException;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.model.BucketUnit;
 import ru.practicum.statsserver.model.EndpointHitEntity;
+import ru.practicum.statsserver.model.IpAddresses;
+import ru.practicum.statsserver.model.RollupIncrement;
+import ru.practicum.statsserver.model.TimeSegment;
+import ru.practicum.statsserver.model.UniqueMode;
+import ru.practicum.statsserver.model.VisitorSketch;
+import ru.practicum.statsserver.repository.RollupRepository;
 import ru.practicum.statsserver.repository.StatsRepository;
+import ru.practicum.statsserver.sketch.HyperLogLog;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(value = "stats.storage.engine", havingValue = "jpa", matchIfMissing = true)
 public class StatsServiceImpl implements StatsService {
 
     private final StatsRepository repository;
+    private final RollupRepository rollupRepository;
+    private final UniqueSketchService uniqueSketchService;
+    private final TrendingService trendingService;
+    private final StatsResultCache resultCache;
+    private final RollupRetention rollupRetention;
+    private final RawHitRetention rawHitRetention;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @Transactional
     public void saveHit(EndpointHit hitDto) {
-        EndpointHitEntity entity = new EndpointHitEntity();
-        entity.setApp(hitDto.getApp());
-        entity.setUri(hitDto.getUri());
-        entity.setIp(hitDto.getIp());
-        entity.setTimestamp(LocalDateTime.parse(hitDto.getTimestamp(), formatter));
-        repository.save(entity);
+        saveHits(List.of(hitDto));
+    }
+
+    @Transactional
+    public void saveHits(List<EndpointHit> hitDtoList) {
+        if (hitDtoList.isEmpty()) {
+            return;
+        }
+        List<EndpointHitEntity> entities = hitDtoList.stream()
+                .map(this::toEntity)
+                .toList();
+        repository.insertAll(entities);
+        rollupRepository.increment(toRollupIncrements(entities));
+        uniqueSketchService.record(entities);
+        // топ в памяти, как и скетчи, видит только зафиксированные хиты
+        AfterCommit.run(() -> entities.forEach(hit ->
+                trendingService.record(hit.getApp(), hit.getUri(), hit.getTimestamp())));
+        resultCache.invalidate(entities);
     }
 
     @Transactional(readOnly = true)
-    public List<ViewStats> getStats(String start, String end, List<String> uris, boolean unique) {
+    public List<ViewStats> getStats(String start, String end, List<String> uris, UniqueMode unique) {
         LocalDateTime s = LocalDateTime.parse(start, formatter);
         LocalDateTime e = LocalDateTime.parse(end, formatter);
 
@@ -43,11 +72,123 @@ public class StatsServiceImpl implements StatsService {
         // Если uris пустой или null — не фильтруем по URI
         List<String> filteredUris = (uris != null && !uris.isEmpty()) ? uris : null;
 
-        if (unique) {
-            return repository.getUniqueStats(s, e, filteredUris);
+        return switch (unique) {
+            // точные уникальные ip нельзя сложить по корзинам — считаем по сырым хитам, пока они хранятся
+            case EXACT -> {
+                rawHitRetention.checkExactFrom(s);
+                yield repository.getUniqueStats(s, e, filteredUris);
+            }
+            case APPROX -> getApproxStats(s, e, filteredUris);
+            case NONE -> getRollupStats(s, e, filteredUris);
+        };
+    }
+
+    // BETWEEN включает обе границы, а хиты хранятся с точностью до секунды.
+    // Закрытые сутки внутри интервала берутся из кэша, края до и после них — свежим запросом
+    private List<ViewStats> getRollupStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime to = end.plusSeconds(1);
+        LocalDateTime closedFrom = BucketUnit.DAY.ceil(start);
+        LocalDateTime closedTo = closedTo(to);
+
+        Map<List<String>, Long> hits = new HashMap<>();
+        if (closedFrom.isBefore(closedTo)) {
+            List<TimeSegment> closedPlan = RollupPlanner.plan(closedFrom, closedTo);
+            mergeHits(hits, resultCache.getHits(closedFrom, closedTo, uris,
+                    missing -> rollupRepository.sumHits(closedPlan, missing)));
+            addHits(hits, start, closedFrom, uris);
+            addHits(hits, closedTo, to, uris);
         } else {
-            return repository.getAllStats(s, e, filteredUris);
+            addHits(hits, start, to, uris);
+        }
+
+        return hits.entrySet().stream()
+                .map(entry -> new ViewStats(entry.getKey().get(0), entry.getKey().get(1), entry.getValue()))
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    // Так же, как getRollupStats: скетчи закрытых суток берутся из кэша и сливаются со скетчами краев,
+    // а уникальные оцениваются по объединению — сумма оценок посчитала бы посетителя дважды
+    private List<ViewStats> getApproxStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime to = end.plusSeconds(1);
+        LocalDateTime closedFrom = BucketUnit.DAY.ceil(start);
+        LocalDateTime closedTo = closedTo(to);
+        if (!closedFrom.isBefore(closedTo)) {
+            return uniqueSketchService.estimate(start, to, uris);
+        }
+
+        Map<List<String>, HyperLogLog> sketches = new HashMap<>();
+        List<VisitorSketch> closed = resultCache.getSketches(closedFrom, closedTo, uris, missing ->
+                uniqueSketchService.collect(closedFrom, closedTo, missing).entrySet().stream()
+                        .map(entry -> new VisitorSketch(entry.getKey().get(0), entry.getKey().get(1),
+                                entry.getValue().toBytes()))
+                        .toList());
+        for (VisitorSketch visitors : closed) {
+            mergeSketch(sketches, List.of(visitors.app(), visitors.uri()), HyperLogLog.fromBytes(visitors.sketch()));
+        }
+        mergeSketches(sketches, uniqueSketchService.collect(start, closedFrom, uris));
+        mergeSketches(sketches, uniqueSketchService.collect(closedTo, to, uris));
+        return UniqueSketchService.estimate(sketches);
+    }
+
+    // конец последних закрытых суток, не позже to
+    private LocalDateTime closedTo(LocalDateTime to) {
+        LocalDateTime closedTo = BucketUnit.DAY.floor(to);
+        LocalDateTime closedBefore = resultCache.closedBefore();
+        return closedTo.isAfter(closedBefore) ? closedBefore : closedTo;
+    }
+
+    private static void mergeSketches(Map<List<String>, HyperLogLog> sketches, Map<List<String>, HyperLogLog> more) {
+        more.forEach((key, sketch) -> mergeSketch(sketches, key, sketch));
+    }
+
+    // скетч кладется без копии: collect и fromBytes каждый раз создают новые
+    private static void mergeSketch(Map<List<String>, HyperLogLog> sketches, List<String> key, HyperLogLog sketch) {
+        HyperLogLog target = sketches.putIfAbsent(key, sketch);
+        if (target != null) {
+            target.merge(sketch);
+        }
+    }
+
+    private void addHits(Map<List<String>, Long> hits, LocalDateTime from, LocalDateTime to, List<String> uris) {
+        List<TimeSegment> plan = rollupRetention.plan(from, to);
+        List<TimeSegment> bucketSegments = plan.stream().filter(segment -> !segment.isRaw()).toList();
+        List<TimeSegment> rawSegments = plan.stream().filter(TimeSegment::isRaw).toList();
+
+        if (!bucketSegments.isEmpty()) {
+            mergeHits(hits, rollupRepository.sumHits(bucketSegments, uris));
+        }
+        if (!rawSegments.isEmpty()) {
+            mergeHits(hits, repository.countHits(rawSegments, uris));
+        }
+    }
+
+    private void mergeHits(Map<List<String>, Long> hits, List<ViewStats> viewStatsList) {
+        for (ViewStats viewStats : viewStatsList) {
+            hits.merge(List.of(viewStats.getApp(), viewStats.getUri()), viewStats.getHits(), Long::sum);
+        }
+    }
+
+    // одна пачка хитов превращается в несколько приращений по каждой корзине
+    private List<RollupIncrement> toRollupIncrements(List<EndpointHitEntity> entities) {
+        Map<BucketKey, Long> counts = new TreeMap<>(BucketKey.LOCK_ORDER);
+        for (EndpointHitEntity entity : entities) {
+            for (BucketUnit unit : BucketUnit.values()) {
+                BucketKey key = new BucketKey(entity.getApp(), entity.getUri(), unit, unit.floor(entity.getTimestamp()));
+                counts.merge(key, 1L, Long::sum);
+            }
         }
+        return counts.entrySet().stream()
+                .map(entry -> new RollupIncrement(entry.getKey(), entry.getValue()))
+                .toList();
     }
 
+    private EndpointHitEntity toEntity(EndpointHit hitDto) {
+        EndpointHitEntity entity = new EndpointHitEntity();
+        entity.setApp(hitDto.getApp());
+        entity.setUri(hitDto.getUri());
+        entity.setIp(IpAddresses.canonical(hitDto.getIp()));
+        entity.setTimestamp(LocalDateTime.parse(hitDto.getTimestamp(), formatter));
+        return entity;
+    }
 }
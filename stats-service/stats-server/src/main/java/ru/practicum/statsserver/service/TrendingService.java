@@ -0,0 +1,116 @@
+package ru.practicum.statsserver.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.exception.ValidationException;
+import ru.practicum.statsserver.model.TrendingWindow;
+import ru.practicum.statsserver.sketch.SpaceSaving;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Самые просматриваемые uri за последние 5 минут, час и день — для /stats/top.
+// Каждое окно — кольцо шагов со своей сводкой Space-Saving; запрос складывает сводки шагов окна,
+// поэтому его стоимость зависит только от числа шагов и capacity, а не от числа хитов.
+// Сводки живут в памяти экземпляра и после перезапуска набираются заново
+@Service
+public class TrendingService {
+    private final int capacity;
+    private final Clock clock;
+    private final Map<TrendingWindow, SlidingTop> windows = new EnumMap<>(TrendingWindow.class);
+
+    private record Endpoint(String app, String uri) {
+    }
+
+    @Autowired
+    public TrendingService(@Value("${stats.top.capacity:200}") int capacity) {
+        this(capacity, Clock.systemDefaultZone());
+    }
+
+    // часы подменяются в тестах, чтобы проверить выпадение шагов из окна
+    TrendingService(int capacity, Clock clock) {
+        this.capacity = capacity;
+        this.clock = clock;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            windows.put(window, new SlidingTop(window, capacity));
+        }
+    }
+
+    // вызывается после фиксации каждой пачки хитов
+    public void record(String app, String uri, LocalDateTime timestamp) {
+        long now = now();
+        long second = timestamp.toEpochSecond(ZoneOffset.UTC);
+        Endpoint endpoint = new Endpoint(app, uri);
+        windows.values().forEach(top -> top.add(endpoint, second, now));
+    }
+
+    // больше capacity ключей сводка не хранит, поэтому limit сверху ограничивается ею
+    public List<ViewStats> getTop(String window, int limit) {
+        TrendingWindow trendingWindow = TrendingWindow.parse(window);
+        if (limit < 1) {
+            throw new ValidationException("limit должен быть положительным");
+        }
+        Map<Endpoint, Long> hits = windows.get(trendingWindow).sum(now());
+        return hits.entrySet().stream()
+                .sorted(Map.Entry.<Endpoint, Long>comparingByValue().reversed())
+                .limit(Math.min(limit, capacity))
+                .map(entry -> new ViewStats(entry.getKey().app(), entry.getKey().uri(), entry.getValue()))
+                .toList();
+    }
+
+    // хиты хранят локальное время клиента, поэтому и «сейчас» берется без часового пояса
+    private long now() {
+        return LocalDateTime.now(clock).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class SlidingTop {
+        private final long sliceSeconds;
+        private final SpaceSaving<Endpoint>[] slices;
+        // номер шага (секунды / sliceSeconds), которому принадлежит сводка в ячейке кольца
+        private final long[] sliceIds;
+
+        @SuppressWarnings("unchecked")
+        private SlidingTop(TrendingWindow window, int capacity) {
+            this.sliceSeconds = window.sliceSeconds();
+            this.slices = new SpaceSaving[window.slices()];
+            this.sliceIds = new long[window.slices()];
+            for (int i = 0; i < slices.length; i++) {
+                slices[i] = new SpaceSaving<>(capacity);
+                sliceIds[i] = -1;
+            }
+        }
+
+        // хиты старше окна или из будущего (дальше текущего шага) не учитываются
+        private synchronized void add(Endpoint endpoint, long second, long now) {
+            long sliceId = Math.floorDiv(second, sliceSeconds);
+            long currentId = Math.floorDiv(now, sliceSeconds);
+            if (sliceId > currentId || sliceId <= currentId - slices.length) {
+                return;
+            }
+            int index = (int) Math.floorMod(sliceId, (long) slices.length);
+            if (sliceIds[index] != sliceId) {
+                slices[index].clear();
+                sliceIds[index] = sliceId;
+            }
+            slices[index].add(endpoint, 1);
+        }
+
+        private synchronized Map<Endpoint, Long> sum(long now) {
+            long currentId = Math.floorDiv(now, sliceSeconds);
+            Map<Endpoint, Long> hits = new HashMap<>();
+            for (int i = 0; i < slices.length; i++) {
+                if (sliceIds[i] > currentId - slices.length) {
+                    slices[i].forEach((endpoint, count) -> hits.merge(endpoint, count, Long::sum));
+                }
+            }
+            return hits;
+        }
+    }
+}
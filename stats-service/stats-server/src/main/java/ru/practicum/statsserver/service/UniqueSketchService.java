@@ -0,0 +1,193 @@
+package ru.practicum.statsserver.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.EndpointHitEntity;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.model.TimeSegment;
+import ru.practicum.statsserver.repository.SketchRepository;
+import ru.practicum.statsserver.repository.StatsRepository;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+// Приближенный подсчет уникальных ip: скетчи HyperLogLog по часам и дням,
+// края диапазона, не покрытые часовой корзиной, добираются из сырых хитов.
+// Пачки хитов сливаются в скетчи в памяти, а в endpoint_hits_hll их переносит один фоновый поток
+// раз в stats.sketch.flush-interval-ms: писатели горячего uri не ждут друг друга на блокировке строки скетча.
+// Слияние HyperLogLog идемпотентно, поэтому неудачный перенос просто повторяется со следующим.
+// Скетчи, не перенесенные до аварийной остановки, теряются — оценка по таким корзинам занижается
+// (точный режим unique=true от этого не зависит).
+// Хиты, сохраненные до появления скетчей, переносит в них SketchBackfill; сутки раньше его границы
+// читаются из сырых хитов, поэтому оценка не занижается и пока заполнение не закончено
+@Slf4j
+@Service
+public class UniqueSketchService {
+    private static final BucketUnit[] SKETCH_UNITS = {BucketUnit.DAY, BucketUnit.HOUR};
+    private static final byte[] EMPTY_SKETCH = new HyperLogLog().toBytes();
+
+    private final SketchRepository sketchRepository;
+    private final StatsRepository statsRepository;
+    private final TransactionTemplate transaction;
+
+    // скетч идет из pending в flushing, затем в БД; запрос читает в том же порядке и его не пропустит
+    private final Map<BucketKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private final Map<BucketKey, HyperLogLog> flushing = new ConcurrentHashMap<>();
+    // раньше этой границы скетчи еще не заполнены по старым хитам
+    private volatile LocalDateTime sketchesFrom = LocalDateTime.MIN;
+
+    public UniqueSketchService(SketchRepository sketchRepository,
+                               StatsRepository statsRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.sketchRepository = sketchRepository;
+        this.statsRepository = statsRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // вызывается в транзакции сохранения пачки хитов; в скетчи попадают только зафиксированные хиты
+    public void record(List<EndpointHitEntity> hits) {
+        Map<BucketKey, HyperLogLog> updates = new HashMap<>();
+        for (EndpointHitEntity hit : hits) {
+            for (BucketUnit unit : SKETCH_UNITS) {
+                BucketKey key = new BucketKey(hit.getApp(), hit.getUri(), unit, unit.floor(hit.getTimestamp()));
+                updates.computeIfAbsent(key, k -> new HyperLogLog()).add(hit.getIp());
+            }
+        }
+        AfterCommit.run(() -> updates.forEach((key, sketch) -> pending.merge(key, sketch, UniqueSketchService::merge)));
+    }
+
+    @Scheduled(initialDelayString = "${stats.sketch.flush-interval-ms:5000}",
+            fixedDelayString = "${stats.sketch.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        // ключи по порядку первичного ключа: экземпляры сервиса на одной БД блокируют строки в одном порядке
+        Map<BucketKey, HyperLogLog> batch = new TreeMap<>(BucketKey.LOCK_ORDER);
+        for (BucketKey key : List.copyOf(pending.keySet())) {
+            pending.computeIfPresent(key, (k, sketch) -> {
+                flushing.put(k, sketch);
+                batch.put(k, sketch);
+                return null;
+            });
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            transaction.executeWithoutResult(status -> write(batch));
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить {} скетчей уникальных ip, повторим при следующем переносе", batch.size(), e);
+            batch.forEach((key, sketch) -> pending.merge(key, sketch, UniqueSketchService::merge));
+        } finally {
+            batch.forEach(flushing::remove);
+        }
+    }
+
+    // to не включается в диапазон
+    public List<ViewStats> estimate(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        return estimate(collect(from, to, uris));
+    }
+
+    // оценка по скетчам, ключ — app и uri
+    public static List<ViewStats> estimate(Map<List<String>, HyperLogLog> sketches) {
+        return sketches.entrySet().stream()
+                .map(entry -> new ViewStats(entry.getKey().get(0), entry.getKey().get(1), entry.getValue().estimate()))
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    // скетчи уникальных ip за диапазон по app и uri, каждый — новый объект; to не включается
+    public Map<List<String>, HyperLogLog> collect(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        List<TimeSegment> plan = new ArrayList<>();
+        LocalDateTime sketchesFrom = this.sketchesFrom;
+        if (from.isBefore(sketchesFrom) && from.isBefore(to)) {
+            LocalDateTime rawTo = to.isBefore(sketchesFrom) ? to : sketchesFrom;
+            plan.add(new TimeSegment(null, from, rawTo));
+            from = rawTo;
+        }
+        plan.addAll(RollupPlanner.plan(from, to, SKETCH_UNITS));
+        List<TimeSegment> bucketSegments = plan.stream().filter(segment -> !segment.isRaw()).toList();
+        List<TimeSegment> rawSegments = plan.stream().filter(TimeSegment::isRaw).toList();
+
+        Map<List<String>, HyperLogLog> sketches = new HashMap<>();
+        if (!bucketSegments.isEmpty()) {
+            BiConsumer<BucketKey, HyperLogLog> collect = (key, sketch) ->
+                    sketches.computeIfAbsent(List.of(key.app(), key.uri()), k -> new HyperLogLog()).merge(sketch);
+            Set<String> uriFilter = uris == null ? null : Set.copyOf(uris);
+            collectBuffered(pending, bucketSegments, uriFilter, collect);
+            collectBuffered(flushing, bucketSegments, uriFilter, collect);
+            sketchRepository.findAll(bucketSegments, uris).forEach((key, bytes) ->
+                    collect.accept(key, HyperLogLog.fromBytes(bytes)));
+        }
+        if (!rawSegments.isEmpty()) {
+            statsRepository.findDistinctVisitors(rawSegments, uris).forEach(hit ->
+                    sketches.computeIfAbsent(List.of(hit.getApp(), hit.getUri()), k -> new HyperLogLog())
+                            .add(hit.getIp()));
+        }
+        return sketches;
+    }
+
+    // граница заполнения скетчей по старым хитам, выровнена по суткам
+    void useSketchesFrom(LocalDateTime from) {
+        sketchesFrom = from;
+    }
+
+    // слияние готовых скетчей с сохраненными в отдельной транзакции, минуя буфер
+    void store(Map<BucketKey, HyperLogLog> sketches) {
+        Map<BucketKey, HyperLogLog> batch = new TreeMap<>(BucketKey.LOCK_ORDER);
+        batch.putAll(sketches);
+        transaction.executeWithoutResult(status -> write(batch));
+    }
+
+    private void write(Map<BucketKey, HyperLogLog> batch) {
+        List<BucketKey> keys = List.copyOf(batch.keySet());
+        sketchRepository.insertMissing(keys, EMPTY_SKETCH);
+        Map<BucketKey, byte[]> stored = sketchRepository.findForUpdate(keys);
+
+        Map<BucketKey, byte[]> merged = new HashMap<>();
+        batch.forEach((key, sketch) -> {
+            HyperLogLog result = new HyperLogLog();
+            result.merge(sketch);
+            byte[] bytes = stored.get(key);
+            if (bytes != null) {
+                result.merge(HyperLogLog.fromBytes(bytes));
+            }
+            merged.put(key, result.toBytes());
+        });
+        sketchRepository.updateAll(merged);
+    }
+
+    // буферизованный скетч читается под блокировкой его ключа: параллельная запись не меняет его посреди чтения
+    private static void collectBuffered(Map<BucketKey, HyperLogLog> buffer, List<TimeSegment> segments,
+                                        Set<String> uris, BiConsumer<BucketKey, HyperLogLog> collect) {
+        for (BucketKey key : List.copyOf(buffer.keySet())) {
+            if ((uris == null || uris.contains(key.uri())) && covers(segments, key)) {
+                buffer.computeIfPresent(key, (k, sketch) -> {
+                    collect.accept(k, sketch);
+                    return sketch;
+                });
+            }
+        }
+    }
+
+    private static boolean covers(List<TimeSegment> segments, BucketKey key) {
+        return segments.stream().anyMatch(segment -> segment.unit() == key.unit()
+                && !key.bucketStart().isBefore(segment.from()) && key.bucketStart().isBefore(segment.to()));
+    }
+
+    private static HyperLogLog merge(HyperLogLog target, HyperLogLog source) {
+        target.merge(source);
+        return target;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.statsserver.sketch;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ObjLongConsumer;
+
+// Space-Saving: самые частые ключи потока в capacity счетчиках. Новый ключ при заполненной таблице
+// вытесняет счетчик с наименьшим значением и наследует его, поэтому оценка завышена не больше,
+// чем на N / capacity, а любой ключ с частотой выше N / capacity гарантированно остается в таблице
+public class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, Counter<K>> counters = new HashMap<>();
+    // порядок по значению для поиска минимума; seq различает счетчики с равными значениями
+    private final TreeSet<Counter<K>> byCount = new TreeSet<>(Comparator.<Counter<K>>comparingLong(c -> c.count)
+            .thenComparingLong(c -> c.seq));
+    private long seq;
+
+    private static final class Counter<K> {
+        private final K key;
+        private final long seq;
+        private long count;
+
+        private Counter(K key, long seq, long count) {
+            this.key = key;
+            this.seq = seq;
+            this.count = count;
+        }
+    }
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void add(K key, long increment) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += increment;
+            byCount.add(counter);
+            return;
+        }
+        long inherited = 0;
+        if (counters.size() >= capacity) {
+            Counter<K> min = byCount.pollFirst();
+            counters.remove(min.key);
+            inherited = min.count;
+        }
+        counter = new Counter<>(key, seq++, inherited + increment);
+        counters.put(key, counter);
+        byCount.add(counter);
+    }
+
+    public void forEach(ObjLongConsumer<K> consumer) {
+        counters.values().forEach(counter -> consumer.accept(counter.key, counter.count));
+    }
+
+    public void clear() {
+        counters.clear();
+        byCount.clear();
+    }
+}
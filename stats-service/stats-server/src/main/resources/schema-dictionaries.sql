@@ -0,0 +1,14 @@
+-- словари app и uri: в таблице хитов хранятся их ключи
+CREATE TABLE IF NOT EXISTS endpoint_apps (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_endpoint_apps PRIMARY KEY (id),
+    CONSTRAINT uq_endpoint_apps_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_uris (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    uri VARCHAR(512) NOT NULL,
+    CONSTRAINT pk_endpoint_uris PRIMARY KEY (id),
+    CONSTRAINT uq_endpoint_uris_uri UNIQUE (uri)
+);
@@ -1,12 +1,82 @@
+-- ip — метка семейства и байты адреса (см. IpAddresses).
+-- На PostgreSQL HitPartitionManager при старте преобразует таблицу в секционированную по timestamp
+-- с первичным ключом (id, timestamp); индексы ниже тогда уже существуют на родительской таблице.
+-- Таблицу со строковыми app, uri и ip прежних версий до этого скрипта переводит на словари HitSchemaMigration
 CREATE TABLE IF NOT EXISTS endpoint_hits (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    app VARCHAR(255) NOT NULL,
-    uri VARCHAR(512) NOT NULL,
-    ip VARCHAR(45) NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    ip BYTEA NOT NULL,
     timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     CONSTRAINT pk_endpoint_hits PRIMARY KEY (id)
 );
 
 CREATE INDEX IF NOT EXISTS idx_timestamp ON endpoint_hits (timestamp);
-CREATE INDEX IF NOT EXISTS idx_uri ON endpoint_hits (uri);
-CREATE INDEX IF NOT EXISTS idx_app ON endpoint_hits (app);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_uri ON endpoint_hits (uri_id);
+
+-- счетчики хитов по корзинам времени: bucket_unit = MINUTE, HOUR или DAY
+CREATE TABLE IF NOT EXISTS endpoint_hits_rollup (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(512) NOT NULL,
+    bucket_unit VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits BIGINT NOT NULL,
+    CONSTRAINT pk_endpoint_hits_rollup PRIMARY KEY (bucket_unit, uri, bucket_start, app)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rollup_bucket ON endpoint_hits_rollup (bucket_unit, bucket_start);
+
+-- первичное заполнение счетчиков по уже сохраненным хитам. Суточные корзины не удаляются (см. RollupRetention),
+-- поэтому по ним видно, что заполнение уже было, и удаленные по сроку минутные и часовые корзины не восстанавливаются;
+-- суточные заполняются последними
+INSERT INTO endpoint_hits_rollup (app, uri, bucket_unit, bucket_start, hits)
+SELECT a.name, u.uri, 'MINUTE', date_trunc('minute', h.timestamp), COUNT(*)
+FROM endpoint_hits h
+JOIN endpoint_apps a ON a.id = h.app_id
+JOIN endpoint_uris u ON u.id = h.uri_id
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hits_rollup WHERE bucket_unit = 'DAY')
+  AND NOT EXISTS (SELECT 1 FROM endpoint_hits_rollup WHERE bucket_unit = 'MINUTE')
+GROUP BY a.name, u.uri, date_trunc('minute', h.timestamp);
+
+INSERT INTO endpoint_hits_rollup (app, uri, bucket_unit, bucket_start, hits)
+SELECT a.name, u.uri, 'HOUR', date_trunc('hour', h.timestamp), COUNT(*)
+FROM endpoint_hits h
+JOIN endpoint_apps a ON a.id = h.app_id
+JOIN endpoint_uris u ON u.id = h.uri_id
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hits_rollup WHERE bucket_unit = 'DAY')
+  AND NOT EXISTS (SELECT 1 FROM endpoint_hits_rollup WHERE bucket_unit = 'HOUR')
+GROUP BY a.name, u.uri, date_trunc('hour', h.timestamp);
+
+INSERT INTO endpoint_hits_rollup (app, uri, bucket_unit, bucket_start, hits)
+SELECT a.name, u.uri, 'DAY', date_trunc('day', h.timestamp), COUNT(*)
+FROM endpoint_hits h
+JOIN endpoint_apps a ON a.id = h.app_id
+JOIN endpoint_uris u ON u.id = h.uri_id
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hits_rollup WHERE bucket_unit = 'DAY')
+GROUP BY a.name, u.uri, date_trunc('day', h.timestamp);
+
+-- скетчи HyperLogLog уникальных ip по корзинам времени: bucket_unit = HOUR или DAY
+CREATE TABLE IF NOT EXISTS endpoint_hits_hll (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(512) NOT NULL,
+    bucket_unit VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    sketch BYTEA NOT NULL,
+    CONSTRAINT pk_endpoint_hits_hll PRIMARY KEY (bucket_unit, uri, bucket_start, app)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hll_bucket ON endpoint_hits_hll (bucket_unit, bucket_start);
+
+-- заполнение скетчей по хитам, сохраненным до их появления (см. SketchBackfill): сутки с backfilled_from
+-- и позже покрыты скетчами, раньше — читаются из сырых хитов; NULL — заполнять больше нечего.
+-- Строка создается один раз: при первом старте с этой таблицей незаполненными считаются все сутки до завтрашних
+CREATE TABLE IF NOT EXISTS endpoint_hits_hll_backfill (
+    id INTEGER NOT NULL,
+    backfilled_from TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_endpoint_hits_hll_backfill PRIMARY KEY (id)
+);
+
+INSERT INTO endpoint_hits_hll_backfill (id, backfilled_from)
+SELECT 1, CASE WHEN EXISTS (SELECT 1 FROM endpoint_hits)
+    THEN date_trunc('day', LOCALTIMESTAMP + INTERVAL '1 day') END
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hits_hll_backfill);
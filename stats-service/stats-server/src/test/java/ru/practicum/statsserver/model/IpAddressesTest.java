@@ -0,0 +1,75 @@
+package ru.practicum.statsserver.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpAddressesTest {
+
+    @Test
+    void encodesIpv4AsFamilyAndFourBytes() {
+        assertThat(IpAddresses.encode("192.168.0.255")).containsExactly(4, 192, 168, 0, 255);
+        assertThat(IpAddresses.decode(IpAddresses.encode("192.168.0.255"))).isEqualTo("192.168.0.255");
+    }
+
+    @Test
+    void encodesIpv6AsFamilyAndSixteenBytes() {
+        byte[] bytes = IpAddresses.encode("2001:db8::ff00:42:8329");
+
+        assertThat(bytes).hasSize(17);
+        assertThat(bytes[0]).isEqualTo((byte) 6);
+        assertThat(IpAddresses.decode(bytes)).isEqualTo("2001:db8:0:0:0:ff00:42:8329");
+    }
+
+    @Test
+    void equivalentIpv6NotationsShareEncoding() {
+        assertThat(IpAddresses.encode("::1")).isEqualTo(IpAddresses.encode("0:0:0:0:0:0:0:1"));
+        assertThat(IpAddresses.encode("2001:DB8::1")).isEqualTo(IpAddresses.encode("2001:0db8:0:0::0001"));
+        assertThat(IpAddresses.canonical("::1")).isEqualTo(IpAddresses.canonical("0:0:0:0:0:0:0:1"));
+    }
+
+    @Test
+    void unspecifiedAddressIsAllZeros() {
+        byte[] bytes = IpAddresses.encode("::");
+
+        assertThat(bytes).hasSize(17).startsWith(6);
+        assertThat(IpAddresses.decode(bytes)).isEqualTo("0:0:0:0:0:0:0:0");
+    }
+
+    @Test
+    void ipv4MappedAddressIsStoredAsIpv4() {
+        assertThat(IpAddresses.encode("::ffff:10.0.0.1")).isEqualTo(IpAddresses.encode("10.0.0.1"));
+        assertThat(IpAddresses.encode("::FFFF:a00:1")).isEqualTo(IpAddresses.encode("10.0.0.1"));
+        assertThat(IpAddresses.canonical("::ffff:10.0.0.1")).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    void embeddedIpv4InOtherPrefixStaysIpv6() {
+        byte[] bytes = IpAddresses.encode("64:ff9b::10.0.0.1");
+
+        assertThat(bytes).hasSize(17).startsWith(6);
+        assertThat(IpAddresses.decode(bytes)).isEqualTo("64:ff9b:0:0:0:0:a00:1");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "unknown", "1.2.3", "1.2.3.4.5", "256.0.0.1", "1.2.3.4 ", "01234.0.0.1",
+            "1::2::3", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7", "12345::", "g::1", "::1.2.3.256", "1:2:3:4:5:6:7::8"})
+    void nonAddressIsKeptAsText(String ip) {
+        byte[] bytes = IpAddresses.encode(ip);
+
+        assertThat(bytes[0]).isZero();
+        assertThat(new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8)).isEqualTo(ip);
+        assertThat(IpAddresses.decode(bytes)).isEqualTo(ip);
+    }
+
+    @Test
+    void textFallbackNeverCollidesWithAddress() {
+        // 4 байта текста совпали бы с IPv4-адресом, если бы не метка семейства
+        assertThat(IpAddresses.encode("abcd")).isNotEqualTo(IpAddresses.encode("97.98.99.100"));
+        assertThat(IpAddresses.decode(IpAddresses.encode("abcd"))).isEqualTo("abcd");
+    }
+}
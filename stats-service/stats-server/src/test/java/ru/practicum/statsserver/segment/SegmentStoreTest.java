@@ -0,0 +1,128 @@
+package ru.practicum.statsserver.segment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.UniqueMode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentStoreTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unsealedHitsAreRecoveredFromWalOnRestart() throws IOException {
+        SegmentStore store = open(100);
+        store.append(List.of(hit("/events/1", "10.0.0.1", 1), hit("/events/1", "10.0.0.2", 2)));
+        store.append(List.of(hit("/events/2", "10.0.0.1", 3)));
+        store.close();
+
+        SegmentStore reopened = open(100);
+
+        assertThat(reopened.collect(FROM, TO, null, UniqueMode.NONE)).containsExactlyInAnyOrder(
+                new ViewStats("ewm", "/events/1", 2L), new ViewStats("ewm", "/events/2", 1L));
+        assertThat(files("segment-")).hasSize(1);
+        reopened.close();
+    }
+
+    @Test
+    void tornWalTailIsDroppedOnRestart() throws IOException {
+        SegmentStore store = open(100);
+        store.append(List.of(hit("/events/1", "10.0.0.1", 1)));
+        store.close();
+        Path wal = files("wal-").get(0);
+        Files.write(wal, ByteBuffer.allocate(8).putInt(1000).putInt(0).array(), StandardOpenOption.APPEND);
+
+        SegmentStore reopened = open(100);
+
+        assertThat(reopened.collect(FROM, TO, null, UniqueMode.NONE))
+                .containsExactly(new ViewStats("ewm", "/events/1", 1L));
+        reopened.close();
+    }
+
+    @Test
+    void fullMemtableIsSealedIntoSegment() throws IOException {
+        SegmentStore store = open(2);
+        store.append(List.of(hit("/events/1", "10.0.0.1", 1), hit("/events/1", "10.0.0.2", 2)));
+        store.append(List.of(hit("/events/1", "10.0.0.2", 3)));
+
+        assertThat(files("segment-")).hasSize(1);
+        assertThat(store.collect(FROM, TO, List.of("/events/1"), UniqueMode.EXACT))
+                .containsExactly(new ViewStats("ewm", "/events/1", 2L));
+        store.close();
+    }
+
+    @Test
+    void compactionMergesSmallSegmentsWithoutChangingResults() throws IOException {
+        // каждый перезапуск запечатывает журнал в отдельный маленький сегмент
+        for (int i = 1; i <= 3; i++) {
+            SegmentStore store = open(100);
+            store.append(List.of(hit("/events/" + i, "10.0.0." + i, i), hit("/events/1", "10.0.0.9", i)));
+            store.close();
+        }
+        SegmentStore store = open(100);
+        List<ViewStats> before = store.collect(FROM, TO, null, UniqueMode.NONE);
+        assertThat(files("segment-")).hasSize(3);
+
+        store.compact();
+
+        assertThat(files("segment-")).extracting(path -> path.getFileName().toString())
+                .containsExactly("segment-1-3.seg");
+        assertThat(store.collect(FROM, TO, null, UniqueMode.NONE)).containsExactlyInAnyOrderElementsOf(before);
+        store.close();
+    }
+
+    @Test
+    void segmentsAlreadyMergedBeforeCrashAreDeletedOnRestart() throws IOException {
+        for (int i = 1; i <= 2; i++) {
+            SegmentStore store = open(100);
+            store.append(List.of(hit("/events/1", "10.0.0." + i, i)));
+            store.close();
+        }
+        Path small = files("segment-").get(0);
+        Path saved = directory.resolve("saved");
+        Files.copy(small, saved);
+        SegmentStore store = open(100);
+        store.compact();
+        store.close();
+        // сбой после записи слитого сегмента, но до удаления исходных
+        Files.move(saved, small, StandardCopyOption.REPLACE_EXISTING);
+
+        SegmentStore reopened = open(100);
+
+        assertThat(files("segment-")).hasSize(1).doesNotContain(small);
+        assertThat(reopened.collect(FROM, TO, null, UniqueMode.NONE))
+                .containsExactly(new ViewStats("ewm", "/events/1", 2L));
+        reopened.close();
+    }
+
+    private SegmentStore open(int maxRows) throws IOException {
+        SegmentStore store = new SegmentStore(directory, maxRows, false);
+        store.open();
+        return store;
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    private static HitRow hit(String uri, String ip, int day) {
+        return HitRow.of("ewm", uri, ip, FROM.plusDays(day));
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.statsserver.segment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.UniqueMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentTest {
+    private static final List<HitRow> ROWS = List.of(
+            new HitRow("ewm", "/events/1", "10.0.0.1", 100),
+            new HitRow("ewm", "/events/1", "10.0.0.1", 200),
+            new HitRow("ewm", "/events/1", "10.0.0.2", 300),
+            new HitRow("ewm", "/events/2", "10.0.0.1", 150));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void collectsHitsAndVisitorsInTimeRange() throws IOException {
+        Segment segment = write();
+
+        assertThat(collect(segment, 0, 1000, null, UniqueMode.NONE)).containsExactlyInAnyOrder(
+                new ViewStats("ewm", "/events/1", 3L), new ViewStats("ewm", "/events/2", 1L));
+        assertThat(collect(segment, 0, 1000, Set.of("/events/1"), UniqueMode.EXACT))
+                .containsExactly(new ViewStats("ewm", "/events/1", 2L));
+        // to не входит в диапазон
+        assertThat(collect(segment, 200, 300, null, UniqueMode.NONE))
+                .containsExactly(new ViewStats("ewm", "/events/1", 1L));
+    }
+
+    @Test
+    void rejectsCorruptedFile() throws IOException {
+        Path path = directory.resolve("segment-1-1.seg");
+        Segment.write(path, ROWS);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> Segment.open(path, 1, 1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Контрольная сумма");
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path path = directory.resolve("segment-1-1.seg");
+        Segment.write(path, ROWS);
+        Files.write(path, Arrays.copyOf(Files.readAllBytes(path), 16));
+
+        assertThatThrownBy(() -> Segment.open(path, 1, 1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("обрезан");
+    }
+
+    private Segment write() throws IOException {
+        Path path = directory.resolve("segment-1-1.seg");
+        Segment.write(path, ROWS);
+        return Segment.open(path, 1, 1);
+    }
+
+    private static List<ViewStats> collect(Segment segment, long from, long to, Set<String> uris, UniqueMode mode) {
+        StatsAccumulator accumulator = new StatsAccumulator(mode);
+        segment.collect(from, to, uris, accumulator);
+        return accumulator.result();
+    }
+}
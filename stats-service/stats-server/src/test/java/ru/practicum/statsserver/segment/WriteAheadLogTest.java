@@ -0,0 +1,215 @@
+package ru.practicum.statsserver.segment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+    private static final List<HitRow> FIRST = List.of(new HitRow("ewm", "/events/1", "10.0.0.1", 100),
+            new HitRow("ewm", "/events/2", "10.0.0.2", 101));
+    private static final List<HitRow> SECOND = List.of(new HitRow("ewm", "/events/1", "10.0.0.3", 102));
+    private static final List<HitRow> THIRD = List.of(new HitRow("ewm", "/events/3", "::1", 103));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayReturnsAppendedBatchesInOrder() throws IOException {
+        Path path = directory.resolve("wal-1.log");
+        try (WriteAheadLog wal = WriteAheadLog.open(path, true)) {
+            wal.append(FIRST);
+            wal.append(SECOND);
+        }
+
+        assertThat(WriteAheadLog.replay(path)).containsExactly(FIRST.get(0), FIRST.get(1), SECOND.get(0));
+    }
+
+    @Test
+    void replayCutsTornTail() throws IOException {
+        Path path = directory.resolve("wal-1.log");
+        try (WriteAheadLog wal = WriteAheadLog.open(path, false)) {
+            wal.append(FIRST);
+        }
+        long valid = Files.size(path);
+        // заголовок записи без полных данных — как после падения посреди записи
+        Files.write(path, ByteBuffer.allocate(12).putInt(100).putInt(42).putInt(7).array(), StandardOpenOption.APPEND);
+
+        assertThat(WriteAheadLog.replay(path)).containsExactlyElementsOf(FIRST);
+        assertThat(Files.size(path)).isEqualTo(valid);
+    }
+
+    @Test
+    void replayStopsAtRecordWithWrongChecksum() throws IOException {
+        Path path = directory.resolve("wal-1.log");
+        try (WriteAheadLog wal = WriteAheadLog.open(path, false)) {
+            wal.append(FIRST);
+        }
+        long valid = Files.size(path);
+        try (WriteAheadLog wal = WriteAheadLog.open(path, false)) {
+            wal.append(SECOND);
+            wal.append(THIRD);
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[(int) valid + 8] ^= 1;
+        Files.write(path, bytes);
+
+        assertThat(WriteAheadLog.replay(path)).containsExactlyElementsOf(FIRST);
+        assertThat(Files.size(path)).isEqualTo(valid);
+    }
+
+    @Test
+    void failedAppendLeavesNoTornBytes() throws IOException {
+        Path path = directory.resolve("wal-1.log");
+        FaultyChannel channel = new FaultyChannel(path);
+        try (WriteAheadLog wal = new WriteAheadLog(path, channel, true)) {
+            wal.append(FIRST);
+            channel.failWrites = true;
+            assertThatThrownBy(() -> wal.append(SECOND)).isInstanceOf(IOException.class);
+            channel.failWrites = false;
+            wal.append(THIRD);
+
+            assertThat(wal.isBroken()).isFalse();
+        }
+
+        assertThat(WriteAheadLog.replay(path)).containsExactly(FIRST.get(0), FIRST.get(1), THIRD.get(0));
+    }
+
+    @Test
+    void failedTruncateBreaksLog() throws IOException {
+        Path path = directory.resolve("wal-1.log");
+        FaultyChannel channel = new FaultyChannel(path);
+        try (WriteAheadLog wal = new WriteAheadLog(path, channel, true)) {
+            wal.append(FIRST);
+            channel.failWrites = true;
+            channel.failTruncate = true;
+            assertThatThrownBy(() -> wal.append(SECOND)).isInstanceOf(IOException.class);
+            channel.failWrites = false;
+
+            assertThat(wal.isBroken()).isTrue();
+            assertThatThrownBy(() -> wal.append(THIRD)).isInstanceOf(IOException.class);
+        }
+
+        assertThat(WriteAheadLog.replay(path)).containsExactlyElementsOf(FIRST);
+    }
+
+    // файловый канал, который по флагу записывает половину буфера и падает, как при нехватке места
+    private static final class FaultyChannel extends FileChannel {
+        private final FileChannel delegate;
+        private boolean failWrites;
+        private boolean failTruncate;
+
+        FaultyChannel(Path path) throws IOException {
+            this.delegate = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!failWrites) {
+                return delegate.write(src);
+            }
+            ByteBuffer half = src.slice(src.position(), Math.max(1, src.remaining() / 2));
+            src.position(src.position() + delegate.write(half));
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("Input/output error");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
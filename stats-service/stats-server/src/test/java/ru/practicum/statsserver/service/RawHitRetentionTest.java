@@ -0,0 +1,43 @@
+package ru.practicum.statsserver.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.statsserver.exception.ValidationException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RawHitRetentionTest {
+    private static final Duration YEAR = Duration.ofDays(365);
+
+    @Test
+    void zeroRetentionKeepsEverything() {
+        RawHitRetention retention = new RawHitRetention(true, Duration.ZERO);
+
+        assertThat(retention.cutoff(LocalDateTime.now())).isEmpty();
+        assertThatCode(() -> retention.checkExactFrom(LocalDateTime.now().minusYears(100))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void retentionIsIgnoredWithoutPartitions() {
+        RawHitRetention retention = new RawHitRetention(false, YEAR);
+
+        assertThat(retention.cutoff(LocalDateTime.now())).isEmpty();
+        assertThatCode(() -> retention.checkExactFrom(LocalDateTime.now().minusYears(100))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void exactCountsBeforeCutoffAreRejected() {
+        RawHitRetention retention = new RawHitRetention(true, YEAR);
+        LocalDateTime now = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+        assertThat(retention.cutoff(now)).contains(now.minus(YEAR));
+        assertThatThrownBy(() -> retention.checkExactFrom(LocalDateTime.now().minusYears(100)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("unique=approx");
+        assertThatCode(() -> retention.checkExactFrom(LocalDateTime.now().minusDays(30))).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.statsserver.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.TimeSegment;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupPlannerTest {
+    private static final LocalDateTime NO_LIMIT = LocalDateTime.MIN;
+
+    @Test
+    void plansLargestBucketsAndRawEdges() {
+        List<TimeSegment> plan = RollupPlanner.plan(LocalDateTime.of(2024, 1, 1, 10, 30, 15),
+                LocalDateTime.of(2024, 1, 3, 2, 0, 0));
+
+        assertThat(plan).containsExactly(
+                new TimeSegment(null, LocalDateTime.of(2024, 1, 1, 10, 30, 15), LocalDateTime.of(2024, 1, 1, 10, 31)),
+                new TimeSegment(BucketUnit.MINUTE, LocalDateTime.of(2024, 1, 1, 10, 31), LocalDateTime.of(2024, 1, 1, 11, 0)),
+                new TimeSegment(BucketUnit.HOUR, LocalDateTime.of(2024, 1, 1, 11, 0), LocalDateTime.of(2024, 1, 2, 0, 0)),
+                new TimeSegment(BucketUnit.DAY, LocalDateTime.of(2024, 1, 2, 0, 0), LocalDateTime.of(2024, 1, 3, 0, 0)),
+                new TimeSegment(BucketUnit.HOUR, LocalDateTime.of(2024, 1, 3, 0, 0), LocalDateTime.of(2024, 1, 3, 2, 0)));
+    }
+
+    @Test
+    void withoutRetentionLimitsPlansLikeAllUnits() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 10, 30, 15);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 3, 2, 0, 0);
+
+        assertThat(RollupPlanner.plan(from, to, NO_LIMIT, NO_LIMIT)).isEqualTo(RollupPlanner.plan(from, to));
+    }
+
+    @Test
+    void doesNotUseMinuteBucketsBeforeMinutesFrom() {
+        LocalDateTime minutesFrom = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        List<TimeSegment> plan = RollupPlanner.plan(LocalDateTime.of(2024, 1, 1, 10, 30),
+                LocalDateTime.of(2024, 1, 1, 12, 10), NO_LIMIT, minutesFrom);
+
+        assertThat(plan).containsExactly(
+                new TimeSegment(null, LocalDateTime.of(2024, 1, 1, 10, 30), LocalDateTime.of(2024, 1, 1, 11, 0)),
+                new TimeSegment(BucketUnit.HOUR, LocalDateTime.of(2024, 1, 1, 11, 0), minutesFrom),
+                new TimeSegment(BucketUnit.MINUTE, minutesFrom, LocalDateTime.of(2024, 1, 1, 12, 10)));
+    }
+
+    @Test
+    void usesOnlyDayBucketsBeforeHoursFrom() {
+        LocalDateTime hoursFrom = LocalDateTime.of(2024, 1, 3, 0, 0);
+        LocalDateTime minutesFrom = LocalDateTime.of(2024, 1, 3, 5, 0);
+
+        List<TimeSegment> plan = RollupPlanner.plan(LocalDateTime.of(2024, 1, 1, 10, 0),
+                LocalDateTime.of(2024, 1, 3, 5, 30), hoursFrom, minutesFrom);
+
+        assertThat(plan).containsExactly(
+                new TimeSegment(null, LocalDateTime.of(2024, 1, 1, 10, 0), LocalDateTime.of(2024, 1, 2, 0, 0)),
+                new TimeSegment(BucketUnit.DAY, LocalDateTime.of(2024, 1, 2, 0, 0), hoursFrom),
+                new TimeSegment(BucketUnit.HOUR, hoursFrom, minutesFrom),
+                new TimeSegment(BucketUnit.MINUTE, minutesFrom, LocalDateTime.of(2024, 1, 3, 5, 30)));
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.statsserver.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.EndpointHitEntity;
+import ru.practicum.statsserver.model.TimeSegment;
+import ru.practicum.statsserver.repository.SketchRepository;
+import ru.practicum.statsserver.repository.StatsRepository;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SketchBackfillTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    private SketchRepository sketchRepository;
+    private StatsRepository statsRepository;
+    private UniqueSketchService uniqueSketchService;
+    private SketchBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        sketchRepository = mock(SketchRepository.class);
+        statsRepository = mock(StatsRepository.class);
+        uniqueSketchService = mock(UniqueSketchService.class);
+        when(statsRepository.findDistinctVisitors(anyList(), isNull())).thenReturn(List.of());
+        backfill = new SketchBackfill(sketchRepository, statsRepository, uniqueSketchService);
+    }
+
+    @Test
+    void fillsLatestUnfilledDayAndMovesBoundary() {
+        when(sketchRepository.findBackfilledFrom()).thenReturn(Optional.of(DAY.plusDays(10)));
+        when(statsRepository.findLatestBefore(DAY.plusDays(10))).thenReturn(Optional.of(DAY.plusHours(15)));
+        visitors(DAY.plusHours(10), visitor("/events/1", "10.0.0.1"), visitor("/events/1", "10.0.0.2"));
+        visitors(DAY.plusHours(11), visitor("/events/1", "10.0.0.1"));
+
+        backfill.step();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<BucketKey, HyperLogLog>> stored = ArgumentCaptor.forClass(Map.class);
+        verify(uniqueSketchService).store(stored.capture());
+        assertThat(stored.getValue()).hasSize(3);
+        assertThat(stored.getValue().get(key(BucketUnit.HOUR, DAY.plusHours(10))).estimate()).isEqualTo(2);
+        assertThat(stored.getValue().get(key(BucketUnit.HOUR, DAY.plusHours(11))).estimate()).isEqualTo(1);
+        assertThat(stored.getValue().get(key(BucketUnit.DAY, DAY)).estimate()).isEqualTo(2);
+        verify(sketchRepository).moveBackfilledFrom(DAY);
+        verify(uniqueSketchService).useSketchesFrom(DAY);
+    }
+
+    @Test
+    void finishesWhenNoEarlierHitsRemain() {
+        when(sketchRepository.findBackfilledFrom()).thenReturn(Optional.of(DAY));
+        when(statsRepository.findLatestBefore(DAY)).thenReturn(Optional.empty());
+
+        backfill.step();
+
+        verify(sketchRepository).finishBackfill();
+        verify(uniqueSketchService).useSketchesFrom(LocalDateTime.MIN);
+        verify(uniqueSketchService, never()).store(any());
+    }
+
+    @Test
+    void finishedBackfillReadsNothing() {
+        when(sketchRepository.findBackfilledFrom()).thenReturn(Optional.empty());
+
+        backfill.init();
+        backfill.step();
+
+        verify(uniqueSketchService, never()).useSketchesFrom(eq(DAY));
+        verify(statsRepository, never()).findLatestBefore(any());
+        verify(uniqueSketchService, never()).store(any());
+    }
+
+    private void visitors(LocalDateTime hour, EndpointHitEntity... visitors) {
+        when(statsRepository.findDistinctVisitors(eq(List.of(new TimeSegment(null, hour, hour.plusHours(1)))),
+                isNull())).thenReturn(List.of(visitors));
+    }
+
+    private static BucketKey key(BucketUnit unit, LocalDateTime start) {
+        return new BucketKey("ewm", "/events/1", unit, start);
+    }
+
+    private static EndpointHitEntity visitor(String uri, String ip) {
+        return new EndpointHitEntity("ewm", uri, ip, null);
+    }
+}
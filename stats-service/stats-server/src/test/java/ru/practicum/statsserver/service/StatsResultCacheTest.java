@@ -0,0 +1,96 @@
+package ru.practicum.statsserver.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.EndpointHitEntity;
+import ru.practicum.statsserver.model.VisitorSketch;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatsResultCacheTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(3);
+
+    private StatsResultCache cache;
+    private List<List<String>> sketchLoads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new StatsResultCache(new SimpleMeterRegistry(), 1000, 1 << 20, Duration.ofHours(1),
+                Duration.ofMinutes(5));
+        sketchLoads = new ArrayList<>();
+    }
+
+    @Test
+    void loadsOnlyUrisMissingFromCache() {
+        cache.getSketches(FROM, TO, List.of("/events/1"), sketchLoader());
+
+        List<VisitorSketch> sketches = cache.getSketches(FROM, TO, List.of("/events/1", "/events/2"), sketchLoader());
+
+        assertThat(sketchLoads).containsExactly(List.of("/events/1"), List.of("/events/2"));
+        assertThat(sketches).extracting(VisitorSketch::uri).containsExactlyInAnyOrder("/events/1", "/events/2");
+        assertThat(HyperLogLog.fromBytes(sketches.get(0).sketch()).estimate()).isEqualTo(2);
+    }
+
+    @Test
+    void lateHitDropsOnlyRangesItFallsInto() {
+        cache.getSketches(FROM, TO, List.of("/events/1", "/events/2"), sketchLoader());
+        cache.getHits(FROM, TO, List.of("/events/1"), uris -> List.of(new ViewStats("ewm", "/events/1", 5L)));
+
+        cache.invalidate(List.of(new EndpointHitEntity("ewm", "/events/1", "10.0.0.3", FROM.plusDays(1))));
+        cache.getSketches(FROM, TO, List.of("/events/1", "/events/2"), sketchLoader());
+        List<ViewStats> hits = cache.getHits(FROM, TO, List.of("/events/1"),
+                uris -> List.of(new ViewStats("ewm", "/events/1", 6L)));
+
+        assertThat(sketchLoads).hasSize(2);
+        assertThat(sketchLoads.get(1)).containsExactly("/events/1");
+        assertThat(hits).containsExactly(new ViewStats("ewm", "/events/1", 6L));
+    }
+
+    @Test
+    void hitAfterClosedDaysKeepsCache() {
+        cache.getSketches(FROM, TO, null, sketchLoader());
+
+        cache.invalidate(List.of(new EndpointHitEntity("ewm", "/events/1", "10.0.0.3", LocalDateTime.now())));
+        cache.getSketches(FROM, TO, null, sketchLoader());
+
+        assertThat(sketchLoads).hasSize(1);
+    }
+
+    @Test
+    void urisWithoutVisitorsAreCachedAsEmpty() {
+        Function<List<String>, List<VisitorSketch>> empty = uris -> {
+            sketchLoads.add(uris);
+            return List.of();
+        };
+
+        assertThat(cache.getSketches(FROM, TO, List.of("/events/9"), empty)).isEmpty();
+        assertThat(cache.getSketches(FROM, TO, List.of("/events/9"), empty)).isEmpty();
+        assertThat(sketchLoads).hasSize(1);
+    }
+
+    // по два посетителя на каждый запрошенный uri; null — один uri /events/1
+    private Function<List<String>, List<VisitorSketch>> sketchLoader() {
+        return uris -> {
+            sketchLoads.add(uris);
+            List<String> loaded = uris == null ? List.of("/events/1") : uris;
+            return loaded.stream()
+                    .map(uri -> {
+                        HyperLogLog sketch = new HyperLogLog();
+                        sketch.add("10.0.0.1");
+                        sketch.add("10.0.0.2");
+                        return new VisitorSketch("ewm", uri, sketch.toBytes());
+                    })
+                    .toList();
+        };
+    }
+}
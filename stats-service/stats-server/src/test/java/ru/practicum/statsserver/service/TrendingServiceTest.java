@@ -0,0 +1,121 @@
+package ru.practicum.statsserver.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.exception.ValidationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrendingServiceTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    private MutableClock clock;
+    private TrendingService service;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        service = new TrendingService(10, clock);
+    }
+
+    @Test
+    void ranksEndpointsByHitsWithinWindow() {
+        record("/events/1", START, 1);
+        record("/events/2", START, 3);
+        record("/events/3", START.minusMinutes(2), 2);
+
+        assertThat(service.getTop("5m", 2)).containsExactly(
+                new ViewStats("ewm", "/events/2", 3L),
+                new ViewStats("ewm", "/events/3", 2L));
+    }
+
+    @Test
+    void oldestSliceDropsOutAsWindowSlides() {
+        record("/events/1", START, 2);
+        clock.advance(Duration.ofMinutes(3));
+        record("/events/2", clock.now(), 1);
+
+        // шаг 10:00:00–10:00:10 еще в пятиминутном окне
+        clock.advance(Duration.ofMinutes(1).plusSeconds(50));
+        assertThat(service.getTop("5m", 10)).containsExactlyInAnyOrder(
+                new ViewStats("ewm", "/events/1", 2L),
+                new ViewStats("ewm", "/events/2", 1L));
+
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(service.getTop("5m", 10)).containsExactly(new ViewStats("ewm", "/events/2", 1L));
+        // в часовом окне оба хита остаются
+        assertThat(service.getTop("1h", 10)).hasSize(2);
+    }
+
+    @Test
+    void reusedSliceForgetsPreviousRound() {
+        record("/events/1", START, 1);
+        // через полный оборот кольца тот же шаг достается новым хитам
+        clock.advance(Duration.ofMinutes(5));
+        record("/events/2", clock.now(), 1);
+
+        assertThat(service.getTop("5m", 10)).containsExactly(new ViewStats("ewm", "/events/2", 1L));
+    }
+
+    @Test
+    void ignoresHitsOutsideWindowAndFromFuture() {
+        record("/events/1", START.minusMinutes(5), 1);
+        record("/events/2", START.plusMinutes(1), 1);
+
+        assertThat(service.getTop("5m", 10)).isEmpty();
+        assertThat(service.getTop("1h", 10)).containsExactly(new ViewStats("ewm", "/events/1", 1L));
+    }
+
+    @Test
+    void rejectsNonPositiveLimitAndUnknownWindow() {
+        assertThatThrownBy(() -> service.getTop("5m", 0)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> service.getTop("2h", 10)).isInstanceOf(ValidationException.class);
+    }
+
+    private void record(String uri, LocalDateTime timestamp, int hits) {
+        for (int i = 0; i < hits; i++) {
+            service.record("ewm", uri, timestamp);
+        }
+    }
+
+    // хиты хранят локальное время без пояса, поэтому часы идут в UTC
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(LocalDateTime start) {
+            this.instant = start.toInstant(ZoneOffset.UTC);
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        private LocalDateTime now() {
+            return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
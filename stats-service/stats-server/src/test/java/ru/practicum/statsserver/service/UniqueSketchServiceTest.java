@@ -0,0 +1,129 @@
+package ru.practicum.statsserver.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.statsdto.ViewStats;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.model.BucketUnit;
+import ru.practicum.statsserver.model.EndpointHitEntity;
+import ru.practicum.statsserver.model.TimeSegment;
+import ru.practicum.statsserver.repository.SketchRepository;
+import ru.practicum.statsserver.repository.StatsRepository;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UniqueSketchServiceTest {
+    private static final LocalDateTime HOUR = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    private SketchRepository sketchRepository;
+    private UniqueSketchService service;
+
+    @BeforeEach
+    void setUp() {
+        sketchRepository = mock(SketchRepository.class);
+        when(sketchRepository.findAll(anyList(), any())).thenReturn(Map.of());
+        when(sketchRepository.findForUpdate(anyList())).thenReturn(Map.of());
+        service = new UniqueSketchService(sketchRepository, mock(StatsRepository.class),
+                mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void buffersSketchesAndCountsThemBeforeFlush() {
+        service.record(List.of(hit("/events/1", "10.0.0.1"), hit("/events/1", "10.0.0.2"),
+                hit("/events/1", "10.0.0.1"), hit("/events/2", "10.0.0.1")));
+
+        assertThat(service.estimate(HOUR, HOUR.plusHours(1), List.of("/events/1")))
+                .containsExactly(new ViewStats("ewm", "/events/1", 2L));
+        verify(sketchRepository, never()).updateAll(any());
+    }
+
+    @Test
+    void flushMergesBufferWithStoredSketch() {
+        HyperLogLog stored = new HyperLogLog();
+        stored.add("10.0.0.9");
+        BucketKey hourKey = new BucketKey("ewm", "/events/1", BucketUnit.HOUR, HOUR);
+        when(sketchRepository.findForUpdate(anyList())).thenReturn(Map.of(hourKey, stored.toBytes()));
+        service.record(List.of(hit("/events/1", "10.0.0.1")));
+
+        service.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<BucketKey, byte[]>> written = ArgumentCaptor.forClass(Map.class);
+        verify(sketchRepository).updateAll(written.capture());
+        assertThat(written.getValue()).containsOnlyKeys(hourKey,
+                new BucketKey("ewm", "/events/1", BucketUnit.DAY, HOUR.withHour(0)));
+        assertThat(HyperLogLog.fromBytes(written.getValue().get(hourKey)).estimate()).isEqualTo(2);
+        // после переноса буфер пуст, оценка берется из БД
+        assertThat(service.estimate(HOUR, HOUR.plusHours(1), null)).isEmpty();
+    }
+
+    @Test
+    void failedFlushKeepsSketchesForNextAttempt() {
+        doThrow(new IllegalStateException("db down")).when(sketchRepository).updateAll(any());
+        service.record(List.of(hit("/events/1", "10.0.0.1")));
+
+        service.flush();
+
+        assertThat(service.estimate(HOUR, HOUR.plusHours(1), null))
+                .containsExactly(new ViewStats("ewm", "/events/1", 1L));
+    }
+
+    @Test
+    void rolledBackBatchIsNotCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.record(List.of(hit("/events/1", "10.0.0.1")));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(service.estimate(HOUR, HOUR.plusHours(1), null)).isEmpty();
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(service.estimate(HOUR, HOUR.plusHours(1), null))
+                .containsExactly(new ViewStats("ewm", "/events/1", 1L));
+    }
+
+    @Test
+    void readsRawHitsBeforeBackfilledSketches() {
+        LocalDateTime day = HOUR.withHour(0);
+        StatsRepository statsRepository = mock(StatsRepository.class);
+        when(statsRepository.findDistinctVisitors(anyList(), any())).thenReturn(List.of(
+                new EndpointHitEntity("ewm", "/events/1", "10.0.0.7", null)));
+        service = new UniqueSketchService(sketchRepository, statsRepository, mock(PlatformTransactionManager.class));
+        service.useSketchesFrom(day.plusDays(1));
+
+        service.collect(day.minusDays(1), day.plusDays(3), null);
+
+        verify(statsRepository).findDistinctVisitors(
+                List.of(new TimeSegment(null, day.minusDays(1), day.plusDays(1))), null);
+        verify(sketchRepository).findAll(
+                List.of(new TimeSegment(BucketUnit.DAY, day.plusDays(1), day.plusDays(3))), null);
+    }
+
+    private static EndpointHitEntity hit(String uri, String ip) {
+        return new EndpointHitEntity("ewm", uri, ip, HOUR.plusMinutes(5));
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.statsserver.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+    // стандартная ошибка 1.04 / sqrt(4096) ≈ 1.6%; три сигмы
+    private static final double MAX_RELATIVE_ERROR = 3 * 1.04 / Math.sqrt(4096);
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 50_000, 200_000, 1_000_000})
+    void estimateStaysWithinStandardErrorBound(int cardinality) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < cardinality; i++) {
+            sketch.add(ip(i));
+        }
+
+        assertThat((double) sketch.estimate()).isCloseTo(cardinality, within(cardinality * MAX_RELATIVE_ERROR));
+    }
+
+    @Test
+    void smallCardinalitiesAreCountedExactly() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 1; i <= 50; i++) {
+            sketch.add(ip(i));
+            sketch.add(ip(i));
+            assertThat(sketch.estimate()).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void mergeEstimatesUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 60_000; i++) {
+            first.add(ip(i));
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            second.add(ip(i));
+        }
+
+        first.merge(second);
+        first.merge(second);
+
+        assertThat((double) first.estimate()).isCloseTo(100_000, within(100_000 * MAX_RELATIVE_ERROR));
+    }
+
+    @Test
+    void sparseAndDenseFormsRoundTrip() {
+        HyperLogLog sparse = new HyperLogLog();
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            sparse.add(ip(i));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            dense.add(ip(i));
+        }
+
+        assertThat(sparse.toBytes()).hasSizeLessThan(4096);
+        assertThat(dense.toBytes()).hasSize(4097);
+        assertThat(HyperLogLog.fromBytes(sparse.toBytes()).estimate()).isEqualTo(sparse.estimate());
+        assertThat(HyperLogLog.fromBytes(dense.toBytes()).estimate()).isEqualTo(dense.estimate());
+    }
+
+    private static String ip(int i) {
+        return "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+    }
+}
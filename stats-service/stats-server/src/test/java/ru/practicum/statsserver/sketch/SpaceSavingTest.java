@@ -0,0 +1,72 @@
+package ru.practicum.statsserver.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyWhileKeysFitCapacity() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(3);
+        sketch.add("a", 1);
+        sketch.add("b", 2);
+        sketch.add("a", 4);
+        sketch.add("c", 1);
+
+        assertThat(counts(sketch)).containsOnly(Map.entry("a", 5L), Map.entry("b", 2L), Map.entry("c", 1L));
+    }
+
+    @Test
+    void newKeyReplacesMinimumAndInheritsItsCount() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(2);
+        sketch.add("a", 5);
+        sketch.add("b", 2);
+        sketch.add("c", 1);
+
+        assertThat(counts(sketch)).containsOnly(Map.entry("a", 5L), Map.entry("c", 3L));
+    }
+
+    @Test
+    void frequentKeysSurviveAndOverestimateIsBounded() {
+        int capacity = 10;
+        SpaceSaving<String> sketch = new SpaceSaving<>(capacity);
+        long total = 0;
+        // два частых ключа на фоне тысячи редких
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add("rare-" + i, 1);
+            sketch.add("hot", 1);
+            total += 2;
+            if (i % 2 == 0) {
+                sketch.add("warm", 1);
+                total++;
+            }
+        }
+
+        Map<String, Long> counts = counts(sketch);
+        assertThat(counts).hasSize(capacity);
+        assertThat(counts.get("hot")).isBetween(1_000L, 1_000L + total / capacity);
+        assertThat(counts.get("warm")).isBetween(500L, 500L + total / capacity);
+    }
+
+    @Test
+    void clearDropsAllCounters() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(2);
+        sketch.add("a", 5);
+        sketch.add("b", 2);
+
+        sketch.clear();
+        sketch.add("c", 1);
+
+        assertThat(counts(sketch)).containsOnly(Map.entry("c", 1L));
+    }
+
+    private static Map<String, Long> counts(SpaceSaving<String> sketch) {
+        Map<String, Long> counts = new HashMap<>();
+        sketch.forEach(counts::put);
+        return counts;
+    }
+}